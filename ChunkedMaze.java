@@ -0,0 +1,299 @@
+import java.awt.Color;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javalib.impworld.World;
+import javalib.impworld.WorldScene;
+import javalib.worldimages.TextImage;
+import javalib.worldimages.WorldImage;
+
+// represents one square chunk of an unbounded maze
+// the chunk is a perfect maze on its own, plus one opening
+// through its right border and one through its bottom border
+class MazeChunk {
+  static final int SIZE = 16;
+
+  int chunkX;
+  int chunkY;
+  // rightOpen[i] is true if local cell i has a passage to the cell on its right
+  boolean[] rightOpen = new boolean[SIZE * SIZE];
+  // downOpen[i] is true if local cell i has a passage to the cell below it
+  boolean[] downOpen = new boolean[SIZE * SIZE];
+
+  // constructor
+  // generates the chunk from the seed and its chunk coordinates only,
+  // so the same chunk always comes out the same no matter when it is loaded
+  MazeChunk(long seed, int chunkX, int chunkY) {
+    this.chunkX = chunkX;
+    this.chunkY = chunkY;
+    this.generate(seed);
+  }
+
+  // runs kruskal over the inner edges of the chunk with a seeded edge order,
+  // then opens the two border passages
+  // EFFECT: fills rightOpen and downOpen
+  void generate(long seed) {
+    int cells = SIZE * SIZE;
+    // edge e < cells is the right edge of cell e, otherwise the bottom edge of cell e - cells
+    int[] order = new int[cells * 2];
+    int count = 0;
+    for (int i = 0; i < cells; i++) {
+      if (i % SIZE != SIZE - 1) {
+        order[count] = i;
+        count++;
+      }
+      if (i / SIZE != SIZE - 1) {
+        order[count] = cells + i;
+        count++;
+      }
+    }
+
+    // fisher-yates shuffle driven by the chunk's own hash stream
+    long state = ChunkedMaze.mix(seed, this.chunkX, this.chunkY, 0);
+    for (int i = count - 1; i > 0; i--) {
+      state = SplitMix.next(state);
+      int j = (int) Long.remainderUnsigned(state, i + 1);
+      int tmp = order[i];
+      order[i] = order[j];
+      order[j] = tmp;
+    }
+
+    int[] parent = new int[cells];
+    for (int i = 0; i < cells; i++) {
+      parent[i] = i;
+    }
+    for (int k = 0; k < count; k++) {
+      int e = order[k];
+      int a = e < cells ? e : e - cells;
+      int b = e < cells ? a + 1 : a + SIZE;
+      int rootA = UnionFind.find(parent, a);
+      int rootB = UnionFind.find(parent, b);
+      if (rootA != rootB) {
+        parent[rootA] = rootB;
+        if (e < cells) {
+          this.rightOpen[a] = true;
+        }
+        else {
+          this.downOpen[a] = true;
+        }
+      }
+    }
+
+    // one passage into the chunk on the right, one into the chunk below
+    int eastRow = (int) Long.remainderUnsigned(ChunkedMaze.mix(seed, chunkX, chunkY, 1), SIZE);
+    int southCol = (int) Long.remainderUnsigned(ChunkedMaze.mix(seed, chunkX, chunkY, 2), SIZE);
+    this.rightOpen[eastRow * SIZE + SIZE - 1] = true;
+    this.downOpen[(SIZE - 1) * SIZE + southCol] = true;
+  }
+
+  // is there a passage from local (col, row) to its right?
+  boolean hasRightPassage(int col, int row) {
+    return this.rightOpen[row * SIZE + col];
+  }
+
+  // is there a passage from local (col, row) to the cell below?
+  boolean hasDownPassage(int col, int row) {
+    return this.downOpen[row * SIZE + col];
+  }
+}
+
+// bounded least-recently-used cache of loaded chunks
+class ChunkCache extends LinkedHashMap<Long, MazeChunk> {
+  private static final long serialVersionUID = 1L;
+
+  int maxChunks;
+
+  // constructor
+  ChunkCache(int maxChunks) {
+    super(maxChunks * 2, 0.75f, true);
+    this.maxChunks = maxChunks;
+  }
+
+  // evicts the least recently used chunk once the cache is over capacity
+  @Override
+  protected boolean removeEldestEntry(Map.Entry<Long, MazeChunk> eldest) {
+    return this.size() > this.maxChunks;
+  }
+}
+
+// represents an unbounded maze made of lazily generated chunks
+// cells are addressed by global (x, y) coordinates, which may be negative
+class ChunkedMaze {
+  // chunks within this many chunks of the player are kept loaded
+  static final int LOAD_RADIUS = 1;
+  static final int DEFAULT_MAX_CHUNKS = 64;
+
+  long seed;
+  ChunkCache cache;
+  int chunksGenerated;
+
+  // constructor
+  ChunkedMaze(long seed, int maxChunks) {
+    if (maxChunks < (2 * LOAD_RADIUS + 1) * (2 * LOAD_RADIUS + 1)) {
+      throw new IllegalArgumentException("Cache must hold at least the chunks around the player");
+    }
+    this.seed = seed;
+    this.cache = new ChunkCache(maxChunks);
+  }
+
+  // convenience constructor with the default cache size
+  ChunkedMaze(long seed) {
+    this(seed, DEFAULT_MAX_CHUNKS);
+  }
+
+  // gets the chunk at the given chunk coordinates, generating it if needed
+  // EFFECT: the chunk becomes the most recently used entry of the cache
+  MazeChunk getChunk(int chunkX, int chunkY) {
+    Long key = key(chunkX, chunkY);
+    MazeChunk chunk = this.cache.get(key);
+    if (chunk == null) {
+      chunk = new MazeChunk(this.seed, chunkX, chunkY);
+      this.cache.put(key, chunk);
+      this.chunksGenerated++;
+    }
+    return chunk;
+  }
+
+  // gets the chunk that holds the given cell
+  MazeChunk chunkFor(int x, int y) {
+    return this.getChunk(Math.floorDiv(x, MazeChunk.SIZE), Math.floorDiv(y, MazeChunk.SIZE));
+  }
+
+  // loads every chunk within LOAD_RADIUS of the chunk holding the given cell
+  // EFFECT: chunks may be generated and others evicted
+  void loadAround(int x, int y) {
+    int centerX = Math.floorDiv(x, MazeChunk.SIZE);
+    int centerY = Math.floorDiv(y, MazeChunk.SIZE);
+    for (int dy = -LOAD_RADIUS; dy <= LOAD_RADIUS; dy++) {
+      for (int dx = -LOAD_RADIUS; dx <= LOAD_RADIUS; dx++) {
+        this.getChunk(centerX + dx, centerY + dy);
+      }
+    }
+    // touch the center last so it is never the eldest entry
+    this.getChunk(centerX, centerY);
+  }
+
+  // is there a passage between (x, y) and (x + 1, y)?
+  boolean openRight(int x, int y) {
+    return this.chunkFor(x, y).hasRightPassage(Math.floorMod(x, MazeChunk.SIZE),
+        Math.floorMod(y, MazeChunk.SIZE));
+  }
+
+  // is there a passage between (x, y) and (x, y + 1)?
+  boolean openDown(int x, int y) {
+    return this.chunkFor(x, y).hasDownPassage(Math.floorMod(x, MazeChunk.SIZE),
+        Math.floorMod(y, MazeChunk.SIZE));
+  }
+
+  // is there a passage between (x, y) and (x - 1, y)?
+  boolean openLeft(int x, int y) {
+    return this.openRight(x - 1, y);
+  }
+
+  // is there a passage between (x, y) and (x, y - 1)?
+  boolean openUp(int x, int y) {
+    return this.openDown(x, y - 1);
+  }
+
+  // number of chunks currently held in memory
+  int loadedChunks() {
+    return this.cache.size();
+  }
+
+  // packs chunk coordinates into one cache key
+  static long key(int chunkX, int chunkY) {
+    return ((long) chunkX << 32) | (chunkY & 0xffffffffL);
+  }
+
+  // hashes the seed, chunk coordinates and a salt into one 64 bit value
+  static long mix(long seed, int chunkX, int chunkY, int salt) {
+    long h = seed ^ (key(chunkX, chunkY) * 0x9E3779B97F4A7C15L) ^ ((long) salt << 17);
+    return SplitMix.next(h);
+  }
+}
+
+// represents the unbounded maze game
+// the scene is a window of cells centered on the player
+class InfiniteMazeWorld extends World {
+  static final int CELL_SIZE = 20;
+  static final int VIEW_CELLS = MazeWorld.SCENE_SIZE / CELL_SIZE;
+
+  ChunkedMaze maze;
+  int playerX;
+  int playerY;
+  int moves;
+
+  // constructor
+  InfiniteMazeWorld(long seed) {
+    this.maze = new ChunkedMaze(seed);
+    this.playerX = 0;
+    this.playerY = 0;
+    this.moves = 0;
+    this.maze.loadAround(this.playerX, this.playerY);
+  }
+
+  // moves the player with the arrow keys, r starts a new maze
+  // EFFECT: player position changes and chunks near the player are loaded
+  public void onKeyEvent(String key) {
+    int oldX = this.playerX;
+    int oldY = this.playerY;
+
+    if (key.equals("up") && this.maze.openUp(playerX, playerY)) {
+      this.playerY--;
+    }
+    if (key.equals("down") && this.maze.openDown(playerX, playerY)) {
+      this.playerY++;
+    }
+    if (key.equals("left") && this.maze.openLeft(playerX, playerY)) {
+      this.playerX--;
+    }
+    if (key.equals("right") && this.maze.openRight(playerX, playerY)) {
+      this.playerX++;
+    }
+    if (key.equals("r")) {
+      this.maze = new ChunkedMaze(this.maze.seed + 1);
+      this.playerX = 0;
+      this.playerY = 0;
+      this.moves = 0;
+    }
+
+    if (oldX != this.playerX || oldY != this.playerY) {
+      this.moves++;
+    }
+    this.maze.loadAround(this.playerX, this.playerY);
+  }
+
+  // draws the cells around the player
+  public WorldScene makeScene() {
+    WorldScene scene = new WorldScene(MazeWorld.SCENE_SIZE, MazeWorld.SCENE_SIZE);
+    int left = this.playerX - VIEW_CELLS / 2;
+    int top = this.playerY - VIEW_CELLS / 2;
+    WorldImage wallV = ImageCache.solid(1, CELL_SIZE, Color.blue);
+    WorldImage wallH = ImageCache.solid(CELL_SIZE, 1, Color.blue);
+
+    for (int row = 0; row < VIEW_CELLS; row++) {
+      for (int col = 0; col < VIEW_CELLS; col++) {
+        int x = left + col;
+        int y = top + row;
+        int px = col * CELL_SIZE + CELL_SIZE / 2;
+        int py = row * CELL_SIZE + CELL_SIZE / 2;
+        if (x == this.playerX && y == this.playerY) {
+          scene.placeImageXY(ImageCache.solid(CELL_SIZE, CELL_SIZE, Color.red), px, py);
+        }
+        if (!this.maze.openRight(x, y)) {
+          scene.placeImageXY(wallV, px + CELL_SIZE / 2, py);
+        }
+        if (!this.maze.openDown(x, y)) {
+          scene.placeImageXY(wallH, px, py + CELL_SIZE / 2);
+        }
+      }
+    }
+
+    String info = "(" + playerX + ", " + playerY + ")  moves: " + moves;
+    scene.placeImageXY(ImageCache.solid(200, 30, Color.white),
+        MazeWorld.SCENE_SIZE / 2, MazeWorld.SCENE_SIZE - 15);
+    scene.placeImageXY(new TextImage(info, 16, Color.black), MazeWorld.SCENE_SIZE / 2,
+        MazeWorld.SCENE_SIZE - 15);
+    return scene;
+  }
+}
@@ -0,0 +1,71 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+// cheapest paths over a maze whose passage weights are traversal costs
+// all state lives in arrays sized once per maze and reused across solves,
+// so solving allocates nothing per cell
+class DijkstraSolver {
+  MazeAdjacency adj;
+  long[] dist; // cost from the source, Long.MAX_VALUE if not reached
+  int[] parent; // previous cell on the cheapest path, -1 for the source
+  RadixHeap heap;
+  int source;
+
+  // constructor
+  DijkstraSolver(MazeAdjacency adj) {
+    this.adj = adj;
+    this.dist = new long[adj.cellCount()];
+    this.parent = new int[adj.cellCount()];
+    this.heap = new RadixHeap();
+    this.source = -1;
+  }
+
+  // cheapest cost from source to goal, -1 if the goal cannot be reached
+  // stops as soon as the goal is settled, pass -1 as goal to settle every cell
+  // EFFECT: dist and parent are rewritten
+  long solve(int source, int goal) {
+    Arrays.fill(this.dist, Long.MAX_VALUE);
+    this.heap.clear();
+    this.source = source;
+    this.dist[source] = 0;
+    this.parent[source] = -1;
+    this.heap.push(0, source);
+
+    while (!this.heap.isEmpty()) {
+      int id = this.heap.pop();
+      long cost = this.heap.lastKey();
+      // a cheaper entry for this cell was already settled
+      if (cost > this.dist[id]) {
+        continue;
+      }
+      if (id == goal) {
+        return cost;
+      }
+      for (int i = this.adj.start(id); i < this.adj.end(id); i++) {
+        int other = this.adj.neighbor(i);
+        long through = cost + this.adj.weight(i);
+        if (through < this.dist[other]) {
+          this.dist[other] = through;
+          this.parent[other] = id;
+          this.heap.push(through, other);
+        }
+      }
+    }
+    return goal == -1 || this.dist[goal] == Long.MAX_VALUE ? -1 : this.dist[goal];
+  }
+
+  // cells on the cheapest path from the last source to the goal, source first
+  // empty if the goal was not reached
+  ArrayList<Integer> path(int goal) {
+    ArrayList<Integer> path = new ArrayList<Integer>();
+    if (this.dist[goal] == Long.MAX_VALUE) {
+      return path;
+    }
+    for (int id = goal; id != -1; id = this.parent[id]) {
+      path.add(id);
+    }
+    Collections.reverse(path);
+    return path;
+  }
+}
@@ -2,8 +2,6 @@ import java.awt.Color;
 import java.util.Random;
 
 import javalib.impworld.WorldScene;
-import javalib.worldimages.OutlineMode;
-import javalib.worldimages.RectangleImage;
 import javalib.worldimages.WorldImage;
 
 // represent an Edge class
@@ -43,6 +41,11 @@ class Edge {
     return this.weight - other.weight;
   }
 
+  // EFFECT: sets the weight of the edge
+  public void setWeight(int weight) {
+    this.weight = weight;
+  }
+
   // EFFECT: sets the edge to connected
   public void setConnected(boolean b) {
     this.connected = b;
@@ -51,13 +54,13 @@ class Edge {
   // draws the edge
   public WorldImage drawEdgeVertical() {
     // if not connected, draw wall
-    return new RectangleImage(1, 20, OutlineMode.SOLID, Color.blue);
+    return ImageCache.solid(1, 20, Color.blue);
   }
 
   // draws the edge horizontal
   public WorldImage drawEdgeHorizontal() {
     // if not connected, draw wall
-    return new RectangleImage(20, 1, OutlineMode.SOLID, Color.blue);
+    return ImageCache.solid(20, 1, Color.blue);
   }
 
   // is the edge connected?
@@ -78,13 +81,27 @@ class Edge {
   // place edge on given background horizontal
   // EFFECT: background gets this edge placed onto it
   public void placeEdgeHorizontal(WorldScene background) {
-    background.placeImageXY(this.drawEdgeHorizontal(), n1.pos.x, n1.pos.y + 10);
+    this.placeEdgeHorizontal(background, 0, 0);
+  }
+
+  // place edge on given background horizontal, shifted left and up by the given offsets
+  // EFFECT: background gets this edge placed onto it
+  public void placeEdgeHorizontal(WorldScene background, int offsetX, int offsetY) {
+    background.placeImageXY(this.drawEdgeHorizontal(), n1.pos.x - offsetX,
+        n1.pos.y + 10 - offsetY);
   }
 
   // place edge on given background horizontal
   // EFFECT: background gets this edge placed onto it
   public void placeEdgeVertical(WorldScene background) {
-    background.placeImageXY(this.drawEdgeVertical(), n1.pos.x + 10, n1.pos.y);
+    this.placeEdgeVertical(background, 0, 0);
+  }
+
+  // place edge on given background vertical, shifted left and up by the given offsets
+  // EFFECT: background gets this edge placed onto it
+  public void placeEdgeVertical(WorldScene background, int offsetX, int offsetY) {
+    background.placeImageXY(this.drawEdgeVertical(), n1.pos.x + 10 - offsetX,
+        n1.pos.y - offsetY);
   }
 
 }
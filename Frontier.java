@@ -0,0 +1,282 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// the worklist of a search, holding cell ids
+// the order cells come back out decides the kind of search
+interface Frontier {
+
+  // EFFECT: adds the cell id to the frontier
+  void push(int id);
+
+  // removes and returns the next cell id
+  // EFFECT: the id is no longer in the frontier
+  int pop();
+
+  // the id pop would return, without removing it
+  int peek();
+
+  // number of ids in the frontier
+  int size();
+
+  // EFFECT: removes every id
+  void clear();
+
+  // is the frontier empty?
+  default boolean isEmpty() {
+    return this.size() == 0;
+  }
+
+  // moves every id of this frontier into the other one, in pop order
+  // EFFECT: this frontier is emptied and the other one filled
+  default void drainInto(Frontier other) {
+    while (!this.isEmpty()) {
+      other.push(this.pop());
+    }
+  }
+}
+
+// first in, first out: breadth first search
+// a growable ring buffer of ids
+class FifoFrontier implements Frontier {
+  int[] ids;
+  int head;
+  int count;
+
+  // constructor
+  FifoFrontier(int capacity) {
+    this.ids = new int[Math.max(4, capacity)];
+  }
+
+  // convenience constructor
+  FifoFrontier() {
+    this(16);
+  }
+
+  public void push(int id) {
+    if (this.count == this.ids.length) {
+      int[] bigger = new int[this.ids.length * 2];
+      for (int i = 0; i < this.count; i++) {
+        bigger[i] = this.ids[(this.head + i) % this.ids.length];
+      }
+      this.ids = bigger;
+      this.head = 0;
+    }
+    this.ids[(this.head + this.count) % this.ids.length] = id;
+    this.count++;
+  }
+
+  public int pop() {
+    int id = this.peek();
+    this.head = (this.head + 1) % this.ids.length;
+    this.count--;
+    return id;
+  }
+
+  public int peek() {
+    if (this.count == 0) {
+      throw new IllegalStateException("Frontier is empty");
+    }
+    return this.ids[this.head];
+  }
+
+  public int size() {
+    return this.count;
+  }
+
+  public void clear() {
+    this.head = 0;
+    this.count = 0;
+  }
+}
+
+// last in, first out: depth first search
+// a growable stack of ids
+class LifoFrontier implements Frontier {
+  int[] ids;
+  int count;
+
+  // constructor
+  LifoFrontier(int capacity) {
+    this.ids = new int[Math.max(4, capacity)];
+  }
+
+  // convenience constructor
+  LifoFrontier() {
+    this(16);
+  }
+
+  public void push(int id) {
+    if (this.count == this.ids.length) {
+      this.ids = Arrays.copyOf(this.ids, this.ids.length * 2);
+    }
+    this.ids[this.count] = id;
+    this.count++;
+  }
+
+  public int pop() {
+    int id = this.peek();
+    this.count--;
+    return id;
+  }
+
+  public int peek() {
+    if (this.count == 0) {
+      throw new IllegalStateException("Frontier is empty");
+    }
+    return this.ids[this.count - 1];
+  }
+
+  public int size() {
+    return this.count;
+  }
+
+  public void clear() {
+    this.count = 0;
+  }
+}
+
+// lowest priority first, e.g. distance to the goal for a greedy search
+// priorities are small non-negative ints given per cell id,
+// so the frontier is a bucket queue: one linked stack of entries per priority
+// push is O(1), pop is O(1) amortized while priorities mostly go up
+class PriorityFrontier implements Frontier {
+  int[] priorities; // priority of each cell id
+  int[] bucketHead; // first entry per priority, -1 if empty
+  int[] entryId;
+  int[] entryNext;
+  int freeEntry; // first unused entry, -1 if none
+  int entries; // entries handed out so far
+  int lowest; // no bucket below this one holds anything
+  int count;
+
+  // constructor
+  PriorityFrontier(int[] priorities) {
+    this.priorities = priorities;
+    int max = 0;
+    for (int p : priorities) {
+      if (p < 0) {
+        throw new IllegalArgumentException("Priorities must not be negative");
+      }
+      max = Math.max(max, p);
+    }
+    this.bucketHead = new int[max + 1];
+    Arrays.fill(this.bucketHead, -1);
+    this.entryId = new int[16];
+    this.entryNext = new int[16];
+    this.freeEntry = -1;
+    this.lowest = max + 1;
+  }
+
+  public void push(int id) {
+    int entry;
+    if (this.freeEntry != -1) {
+      entry = this.freeEntry;
+      this.freeEntry = this.entryNext[entry];
+    }
+    else {
+      if (this.entries == this.entryId.length) {
+        this.entryId = Arrays.copyOf(this.entryId, this.entries * 2);
+        this.entryNext = Arrays.copyOf(this.entryNext, this.entries * 2);
+      }
+      entry = this.entries;
+      this.entries++;
+    }
+    int p = this.priorities[id];
+    this.entryId[entry] = id;
+    this.entryNext[entry] = this.bucketHead[p];
+    this.bucketHead[p] = entry;
+    this.lowest = Math.min(this.lowest, p);
+    this.count++;
+  }
+
+  public int pop() {
+    int p = this.lowestBucket();
+    int entry = this.bucketHead[p];
+    this.bucketHead[p] = this.entryNext[entry];
+    this.entryNext[entry] = this.freeEntry;
+    this.freeEntry = entry;
+    this.count--;
+    return this.entryId[entry];
+  }
+
+  public int peek() {
+    return this.entryId[this.bucketHead[this.lowestBucket()]];
+  }
+
+  // finds the lowest non-empty bucket
+  // EFFECT: lowest moves up past empty buckets
+  int lowestBucket() {
+    if (this.count == 0) {
+      throw new IllegalStateException("Frontier is empty");
+    }
+    while (this.bucketHead[this.lowest] == -1) {
+      this.lowest++;
+    }
+    return this.lowest;
+  }
+
+  public int size() {
+    return this.count;
+  }
+
+  public void clear() {
+    Arrays.fill(this.bucketHead, -1);
+    this.freeEntry = -1;
+    this.entries = 0;
+    this.lowest = this.bucketHead.length;
+    this.count = 0;
+  }
+}
+
+// a random waiting id comes out next: a random walk style search
+// pop swaps the picked id with the last one, so both ends are O(1)
+class RandomFrontier implements Frontier {
+  int[] ids;
+  int count;
+  SplittableRandom random;
+  int picked; // index pop will take, -1 if not chosen yet
+
+  // constructor
+  RandomFrontier(long seed) {
+    this.ids = new int[16];
+    this.random = new SplittableRandom(seed);
+    this.picked = -1;
+  }
+
+  public void push(int id) {
+    if (this.count == this.ids.length) {
+      this.ids = Arrays.copyOf(this.ids, this.ids.length * 2);
+    }
+    this.ids[this.count] = id;
+    this.count++;
+    this.picked = -1;
+  }
+
+  public int pop() {
+    int id = this.peek();
+    this.count--;
+    this.ids[this.picked] = this.ids[this.count];
+    this.picked = -1;
+    return id;
+  }
+
+  // the pick is remembered so peek and the following pop agree
+  public int peek() {
+    if (this.count == 0) {
+      throw new IllegalStateException("Frontier is empty");
+    }
+    if (this.picked == -1) {
+      this.picked = this.random.nextInt(this.count);
+    }
+    return this.ids[this.picked];
+  }
+
+  public int size() {
+    return this.count;
+  }
+
+  public void clear() {
+    this.count = 0;
+    this.picked = -1;
+  }
+}
@@ -0,0 +1,158 @@
+import java.util.Arrays;
+
+// the structure of a generated maze, copied out once and never changed again
+// Cell keeps its color and Graph keeps the state of its animated search, so a live board
+// can only be searched by one thread at a time; a frozen maze holds only final fields
+// over private copies of the passages, so once constructed it is safely published
+// and any number of threads may query it at once without locks
+// every search takes a SearchContext holding its own work arrays, one per thread
+final class FrozenMaze {
+  final int width;
+  final int height;
+  private final int[] offsets; // compressed sparse row passages, as in MazeAdjacency
+  private final int[] neighbors;
+  private final int[] weights; // null if every passage costs 1
+
+  // constructor, copies the passages so later edits to adj are not seen
+  FrozenMaze(MazeAdjacency adj, int width, int height) {
+    if (adj.cellCount() != width * height) {
+      throw new IllegalArgumentException("Adjacency has " + adj.cellCount() + " cells, not "
+          + width * height);
+    }
+    this.width = width;
+    this.height = height;
+    this.offsets = adj.offsets.clone();
+    this.neighbors = adj.neighbors.clone();
+    this.weights = adj.weights == null ? null : adj.weights.clone();
+  }
+
+  // number of cells
+  int cellCount() {
+    return this.offsets.length - 1;
+  }
+
+  // number of passages
+  int edgeCount() {
+    return this.neighbors.length / 2;
+  }
+
+  // first index into the neighbors of the given cell
+  int start(int id) {
+    return this.offsets[id];
+  }
+
+  // one past the last index into the neighbors of the given cell
+  int end(int id) {
+    return this.offsets[id + 1];
+  }
+
+  // the neighbor stored at the given index
+  int neighbor(int index) {
+    return this.neighbors[index];
+  }
+
+  // number of open neighbors of the given cell
+  int degree(int id) {
+    return this.offsets[id + 1] - this.offsets[id];
+  }
+
+  // is there a passage between the two cells?
+  boolean connected(int a, int b) {
+    for (int i = this.offsets[a]; i < this.offsets[a + 1]; i++) {
+      if (this.neighbors[i] == b) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // a mutable copy for the solvers that keep their own state, such as DijkstraSolver
+  MazeAdjacency toAdjacency() {
+    return new MazeAdjacency(this.offsets.clone(), this.neighbors.clone(),
+        this.weights == null ? null : this.weights.clone());
+  }
+
+  // work arrays sized for this maze, for one thread's searches
+  SearchContext newContext() {
+    return new SearchContext(this.cellCount());
+  }
+
+  // searches from source until goal is taken out, or everything is if goal is -1
+  // breadth first, or depth first taking neighbors in stored order
+  // returns the number of cells taken out, which ctx.order lists in order
+  // EFFECT: ctx is overwritten, nothing in this maze changes
+  int search(int source, int goal, boolean depthFirst, SearchContext ctx) {
+    int[] dist = ctx.dist;
+    int[] parent = ctx.parent;
+    int[] work = ctx.work;
+    Arrays.fill(dist, -1);
+    dist[source] = 0;
+    parent[source] = -1;
+    work[0] = source;
+    int head = 0;
+    int tail = 1;
+    int taken = 0;
+    while (depthFirst ? tail > 0 : head < tail) {
+      int id = depthFirst ? work[--tail] : work[head++];
+      ctx.order[taken++] = id;
+      if (id == goal) {
+        break;
+      }
+      for (int i = this.offsets[id]; i < this.offsets[id + 1]; i++) {
+        int other = this.neighbors[i];
+        if (dist[other] == -1) {
+          dist[other] = dist[id] + 1;
+          parent[other] = id;
+          work[tail++] = other;
+        }
+      }
+    }
+    ctx.taken = taken;
+    return taken;
+  }
+
+  // cells from source to goal on the path with the fewest moves, empty if there is none
+  // EFFECT: ctx is overwritten
+  int[] path(int source, int goal, SearchContext ctx) {
+    this.search(source, goal, false, ctx);
+    return ctx.pathTo(goal);
+  }
+
+  // fewest moves from source to goal, -1 if the goal cannot be reached
+  // EFFECT: ctx is overwritten
+  int distance(int source, int goal, SearchContext ctx) {
+    this.search(source, goal, false, ctx);
+    return ctx.dist[goal];
+  }
+}
+
+// the work arrays of searches over one FrozenMaze, owned by a single thread
+// and reused from one search to the next
+class SearchContext {
+  int[] dist; // moves from the source, -1 if not reached
+  int[] parent; // previous cell on the way from the source, -1 for the source
+  int[] work; // the queue or stack of the search
+  int[] order; // cells in the order the search took them out
+  int taken; // how much of order the last search filled
+
+  // constructor
+  SearchContext(int cells) {
+    this.dist = new int[cells];
+    this.parent = new int[cells];
+    this.work = new int[cells];
+    this.order = new int[cells];
+  }
+
+  // cells from the last search's source to the given cell, empty if it was not reached
+  int[] pathTo(int id) {
+    if (this.dist[id] == -1) {
+      return new int[0];
+    }
+    int[] path = new int[this.dist[id] + 1];
+    for (int i = path.length - 1; i >= 0; i--) {
+      path[i] = id;
+      id = this.parent[id];
+    }
+    return path;
+  }
+}
@@ -0,0 +1,414 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// one generated maze, never changed after construction, shared by every session
+// that plays the same width and seed
+// it holds everything a game needs to look up: passages, the solution,
+// and the order breadth and depth first search visit the cells in
+class SharedMaze {
+  final int width;
+  final long seed;
+  final GridMaze maze;
+  final BitSet onPath; // cells on the solution from the top left to the bottom right
+  final int[] bfsOrder; // cells in the order breadth first search takes them out
+  final int[] dfsOrder; // cells in the order depth first search takes them out
+
+  // constructor, generates the maze and precomputes both search orders
+  SharedMaze(int width, long seed) {
+    this.width = width;
+    this.seed = seed;
+    this.maze = MazeGenerator.generate(width, width, seed);
+    this.onPath = MazeExporter.solution(this.maze);
+
+    MazeAdjacency adj = this.maze.toAdjacency();
+    int n = adj.cellCount();
+    this.bfsOrder = new int[n];
+    MazeAnalytics.bfs(adj, 0, new int[n], new int[n], this.bfsOrder);
+
+    this.dfsOrder = new int[n];
+    int[] stack = new int[n];
+    boolean[] seen = new boolean[n];
+    int top = 0;
+    int count = 0;
+    stack[top++] = 0;
+    seen[0] = true;
+    while (top > 0) {
+      int id = stack[--top];
+      this.dfsOrder[count++] = id;
+      for (int i = adj.start(id); i < adj.end(id); i++) {
+        int other = adj.neighbor(i);
+        if (!seen[other]) {
+          seen[other] = true;
+          stack[top++] = other;
+        }
+      }
+    }
+  }
+
+  // the goal cell
+  int goal() {
+    return this.width * this.width - 1;
+  }
+
+  // the cell a move in the given direction leads to, or the same cell if a wall is in the way
+  int move(int id, String direction) {
+    if (direction.equals("up") && this.maze.openUp(id)) {
+      return id - this.width;
+    }
+    if (direction.equals("down") && this.maze.openDown(id)) {
+      return id + this.width;
+    }
+    if (direction.equals("left") && this.maze.openLeft(id)) {
+      return id - 1;
+    }
+    if (direction.equals("right") && this.maze.openRight(id)) {
+      return id + 1;
+    }
+    return id;
+  }
+}
+
+// what one player has done in a shared maze, a few dozen bytes per session
+// plus its move log at 2 bits per move
+// the search is an index into the shared maze's search order, not a copy of it
+class GameSession {
+  static final byte NO_SEARCH = 0;
+  static final byte BFS = 1;
+  static final byte DFS = 2;
+
+  final SharedMaze maze;
+  int current; // the player's cell
+  int wrongMoves;
+  boolean win;
+  byte search;
+  int searched; // cells the animated search has taken out so far
+  MoveLog log = new MoveLog(); // every move that changed current, 2 bits each
+
+  // constructor
+  GameSession(SharedMaze maze) {
+    this.maze = maze;
+  }
+
+  // moves the player, counting moves onto cells off the solution as wrong
+  // EFFECT: current, wrongMoves and win change
+  synchronized void move(String direction) {
+    if (this.win) {
+      return;
+    }
+    int next = this.maze.move(this.current, direction);
+    if (next != this.current) {
+      this.log.append(MoveLog.code(direction));
+      this.current = next;
+      if (!this.maze.onPath.get(next)) {
+        this.wrongMoves++;
+      }
+      this.win = next == this.maze.goal();
+    }
+  }
+
+  // EFFECT: starts an animated search of the given kind from the first cell
+  synchronized void startSearch(byte kind) {
+    this.search = kind;
+    this.searched = 0;
+  }
+
+  // advances the search by up to the given number of cells, stopping at the goal
+  // EFFECT: searched grows
+  synchronized void tick(int steps) {
+    if (this.search == NO_SEARCH) {
+      return;
+    }
+    for (int i = 0; i < steps && !this.searchDone(); i++) {
+      this.searched++;
+    }
+  }
+
+  // has the search taken out the goal?
+  synchronized boolean searchDone() {
+    int[] order = this.search == BFS ? this.maze.bfsOrder : this.maze.dfsOrder;
+    return this.search != NO_SEARCH && this.searched > 0
+        && order[this.searched - 1] == this.maze.goal();
+  }
+
+  // the reply line describing the player
+  synchronized String state() {
+    return "OK " + this.current + " " + this.wrongMoves + " " + this.win;
+  }
+}
+
+// holds every game of the server, keyed by session id
+// sessions with the same width and seed share one SharedMaze,
+// which is dropped once the last of them closes
+class SessionManager {
+  static final int MAX_WIDTH = 2000;
+
+  ConcurrentHashMap<MazeKey, MazeEntry> mazes = new ConcurrentHashMap<MazeKey, MazeEntry>();
+  ConcurrentHashMap<Integer, GameSession> sessions = new ConcurrentHashMap<Integer, GameSession>();
+  AtomicInteger nextId = new AtomicInteger();
+
+  // width and seed of a shared maze
+  static class MazeKey {
+    final int width;
+    final long seed;
+
+    MazeKey(int width, long seed) {
+      this.width = width;
+      this.seed = seed;
+    }
+
+    public boolean equals(Object other) {
+      return other instanceof MazeKey && ((MazeKey) other).width == this.width
+          && ((MazeKey) other).seed == this.seed;
+    }
+
+    public int hashCode() {
+      return Objects.hash(this.width, this.seed);
+    }
+  }
+
+  // the map's slot for one shared maze, counting its sessions
+  // the maze itself is built on first use, outside any map operation,
+  // so generating a large maze never holds a lock other keys need
+  static class MazeEntry {
+    final int width;
+    final long seed;
+    int sessions; // sessions counting on this entry, guarded by the map's compute
+    SharedMaze maze; // null until built, guarded by this
+
+    MazeEntry(int width, long seed) {
+      this.width = width;
+      this.seed = seed;
+    }
+
+    // the shared maze, generated by the first caller while later ones wait for it
+    synchronized SharedMaze maze() {
+      if (this.maze == null) {
+        this.maze = new SharedMaze(this.width, this.seed);
+      }
+      return this.maze;
+    }
+  }
+
+  // opens a session on the maze of the given width and seed, generating it if nobody plays it
+  // returns the session id
+  int open(int width, long seed) {
+    if (width < 1 || width > MAX_WIDTH) {
+      throw new IllegalArgumentException("Width must be between 1 and " + MAX_WIDTH);
+    }
+    // counted inside compute, so an entry can never be dropped between lookup and count,
+    // but generated after it, so compute stays cheap
+    MazeKey key = new MazeKey(width, seed);
+    MazeEntry entry = this.mazes.compute(key, (k, old) -> {
+      MazeEntry counted = old == null ? new MazeEntry(width, seed) : old;
+      counted.sessions++;
+      return counted;
+    });
+    SharedMaze maze;
+    try {
+      maze = entry.maze();
+    }
+    catch (RuntimeException | Error e) {
+      this.release(key);
+      throw e;
+    }
+    int id = this.nextId.incrementAndGet();
+    this.sessions.put(id, new GameSession(maze));
+    return id;
+  }
+
+  // the session with the given id
+  GameSession get(int id) {
+    GameSession session = this.sessions.get(id);
+    if (session == null) {
+      throw new IllegalArgumentException("No session " + id);
+    }
+    return session;
+  }
+
+  // EFFECT: removes the session, and its maze if nobody else plays it
+  void close(int id) {
+    GameSession session = this.sessions.remove(id);
+    if (session == null) {
+      throw new IllegalArgumentException("No session " + id);
+    }
+    this.release(new MazeKey(session.maze.width, session.maze.seed));
+  }
+
+  // EFFECT: closes every session in ids that is still open, as when their connection ends
+  void closeAll(Set<Integer> ids) {
+    for (int id : ids) {
+      try {
+        this.close(id);
+      }
+      catch (IllegalArgumentException e) {
+        // another connection closed it already
+      }
+    }
+    ids.clear();
+  }
+
+  // EFFECT: uncounts one session of the maze, dropping the maze with its last session
+  void release(MazeKey key) {
+    this.mazes.computeIfPresent(key, (k, entry) -> --entry.sessions == 0 ? null : entry);
+  }
+
+  // runs one protocol command and returns its reply line
+  //   NEW width seed          -> OK id
+  //   MOVE id up|down|left|right -> OK cell wrongMoves win
+  //   SEARCH id bfs|dfs       -> OK
+  //   TICK id steps           -> OK searched done
+  //   STATE id                -> OK cell wrongMoves win
+  //   CLOSE id                -> OK
+  // anything wrong is answered with ERR and a message, never an exception
+  String handle(String line) {
+    return this.handle(line, new HashSet<Integer>());
+  }
+
+  // runs one protocol command for a connection that owns the sessions in owned
+  // EFFECT: sessions opened are added to owned, sessions closed are removed from it
+  String handle(String line, Set<Integer> owned) {
+    String[] parts = line.trim().split(" +");
+    try {
+      String command = parts[0].toUpperCase();
+      if (command.equals("NEW")) {
+        int id = this.open(Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+        owned.add(id);
+        return "OK " + id;
+      }
+      GameSession session = this.get(Integer.parseInt(parts[1]));
+      if (command.equals("MOVE")) {
+        session.move(parts[2]);
+        return session.state();
+      }
+      else if (command.equals("SEARCH")) {
+        session.startSearch(parts[2].equals("dfs") ? GameSession.DFS : GameSession.BFS);
+        return "OK";
+      }
+      else if (command.equals("TICK")) {
+        session.tick(parts.length > 2 ? Integer.parseInt(parts[2]) : 1);
+        return "OK " + session.searched + " " + session.searchDone();
+      }
+      else if (command.equals("STATE")) {
+        return session.state();
+      }
+      else if (command.equals("CLOSE")) {
+        int id = Integer.parseInt(parts[1]);
+        this.close(id);
+        owned.remove(id);
+        return "OK";
+      }
+      return "ERR Unknown command " + parts[0];
+    }
+    catch (ArrayIndexOutOfBoundsException e) {
+      return "ERR Missing argument";
+    }
+    catch (IllegalArgumentException e) {
+      return "ERR " + e.getMessage();
+    }
+  }
+}
+
+// serves a SessionManager over line based text on a local socket,
+// one thread per connection, each connection may drive any number of sessions
+// connections get virtual threads where the runtime has them,
+// and small stack platform threads otherwise
+class MazeServer {
+  static final int STACK_BYTES = 128 * 1024;
+
+  SessionManager manager;
+  ServerSocket socket;
+  ExecutorService connections;
+  Thread acceptor;
+
+  // constructor, listens on the loopback address, port 0 picks a free port
+  MazeServer(SessionManager manager, int port) throws IOException {
+    this.manager = manager;
+    this.socket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+    this.connections = threadPerTask();
+  }
+
+  // a virtual thread per task when available, else a cached pool of small stack threads
+  static ExecutorService threadPerTask() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    }
+    catch (ReflectiveOperationException e) {
+      AtomicInteger count = new AtomicInteger();
+      return Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(null, r, "maze-connection-" + count.incrementAndGet(),
+            STACK_BYTES);
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  // the port the server listens on
+  int port() {
+    return this.socket.getLocalPort();
+  }
+
+  // EFFECT: starts accepting connections in the background
+  void start() {
+    this.acceptor = new Thread(() -> {
+      while (!this.socket.isClosed()) {
+        try {
+          Socket client = this.socket.accept();
+          this.connections.execute(() -> this.serve(client));
+        }
+        catch (IOException e) {
+          // the socket was closed by stop
+        }
+      }
+    }, "maze-acceptor");
+    this.acceptor.setDaemon(true);
+    this.acceptor.start();
+  }
+
+  // answers every line of one connection until the client hangs up
+  // EFFECT: the sessions the connection opened and did not close are closed when it ends
+  void serve(Socket client) {
+    Set<Integer> owned = new HashSet<Integer>();
+    try (Socket s = client;
+        BufferedReader in = new BufferedReader(
+            new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+        PrintWriter out = new PrintWriter(s.getOutputStream(), false, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        out.print(this.manager.handle(line, owned));
+        out.print('\n');
+        // replies to pipelined commands go out together
+        if (!in.ready()) {
+          out.flush();
+        }
+      }
+    }
+    catch (IOException e) {
+      // the client went away
+    }
+    finally {
+      this.manager.closeAll(owned);
+    }
+  }
+
+  // EFFECT: stops accepting, open connections end when their clients hang up
+  void stop() throws IOException {
+    this.socket.close();
+    this.connections.shutdownNow();
+  }
+}
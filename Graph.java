@@ -1,22 +1,41 @@
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Map;
 import java.util.Random;
 
 // represent the Graph class
 // this class is used for kruskal
 class Graph {
-  HashMap<Integer, Integer> representatives = new HashMap<Integer, Integer>();
   ArrayList<Edge> edgesInTree;
   ArrayList<Edge> workList; // all edges in graph, sorted by edge weights
-  boolean bfs;
+  ArrayList<Edge> edgesRejected = new ArrayList<Edge>(); // edges kruskal left as walls
+  ArrayList<Edge> edgesBraided = new ArrayList<Edge>(); // rejected edges opened again
   HashMap<Integer, Integer> cameFromEdge;
+  Cell[] cellsById; // every cell touched by an edge, indexed by id
+  Cell[] boardCells; // every cell of the board by id, null to find the cells from the edges
+  MazeAdjacency adjacency; // compact copy of the open edges, built by kruskal
+  SearchTrail mapTrail; // trail behind the hashmap search, for the map it was made for
+  HashMap<Integer, Integer> mapTrailOwner;
+  int[] sets; // union-find parents by cell id, kept between runs of kruskal
+  int kruskalNext; // index of the next worklist edge a stepped kruskal looks at
+  long kruskalNanos; // time spent in the steps so far
+  GenerationEvent kruskalEvent; // open from beginKruskal until the last step
+  int[] scratchFrom; // edge endpoints and weights for toAdjacency, kept between runs
+  int[] scratchTo;
+  int[] scratchWeights;
 
   // constructor
   Graph(ArrayList<Edge> edges, ArrayList<Edge> workList) {
+    this(edges, workList, null);
+  }
+
+  // constructor that knows every cell, including cells no edge touches
+  // such as the only cell of a 1x1 board
+  Graph(ArrayList<Edge> edges, ArrayList<Edge> workList, Cell[] boardCells) {
     this.edgesInTree = edges;
     this.workList = workList;
+    this.boardCells = boardCells;
 
     // this.workList.sort((e1, e2) -> e1.compareTo(e2));;
   }
@@ -28,109 +47,370 @@ class Graph {
     edgesInTree.add(edge);
   }
 
-  // unions two sets together
-  // EFFECT: id mapping is modified, everything in set2 will map to set1
-  public void union(HashMap<Integer, Integer> representatives2, Integer set1, Integer set2) {
-
-    for (Map.Entry<Integer, Integer> entry : representatives2.entrySet()) {
-      if (entry.getValue() == set2) {
-        entry.setValue(set1);
-      }
-    }
-
-  }
-
-  // finds the set this node is in
-  public Integer find(HashMap<Integer, Integer> representatives2, int id) {
-    return representatives2.get(id);
-  }
-
   // kruskal creates minimum spanning tree
+  // sets are tracked with an int union-find by cell id, and the worklist
+  // is walked by index and cleared at the end, so a run is close to linear
   // EFFECT: modifies worklist and outputs minimum spanning tree
   public ArrayList<Edge> kruskal() {
+    this.beginKruskal();
+    this.kruskalSteps(Integer.MAX_VALUE);
+    return edgesInTree;
+  }
+
+  // starts a kruskal that runs a few edges at a time through kruskalSteps,
+  // so a window can be drawn and updated while the maze is still being made
+  // EFFECT: sets are reset and the step position goes back to the first edge
+  void beginKruskal() {
+    kruskalEvent = new GenerationEvent();
+    kruskalEvent.begin();
+    long start = System.nanoTime();
+    this.indexCells();
     // initialize every node's representative to itself
-    // sets
-    for (Edge edge : workList) {
-      this.representatives.put(edge.n1.id, edge.n1.id);
-      this.representatives.put(edge.n2.id, edge.n2.id);
+    if (sets == null || sets.length != cellsById.length) {
+      sets = new int[cellsById.length];
     }
-    // if AB, BC
-    // Node : A B C
-    // Set: A B C
+    for (int id = 0; id < sets.length; id++) {
+      sets[id] = id;
+    }
+    kruskalNext = 0;
+    kruskalNanos = System.nanoTime() - start;
+  }
 
-    while (workList.size() > 0) {
+  // looks at up to the given number of edges in worklist order,
+  // opening the ones that join two sets and closing the rest
+  // returns true while edges remain, the last step clears the worklist and builds adjacency
+  // EFFECT: edges are connected or not, edgesInTree and edgesRejected grow
+  boolean kruskalSteps(int steps) {
+    long start = System.nanoTime();
+    int stop = (int) Math.min(workList.size(), (long) kruskalNext + steps);
+    for (int k = kruskalNext; k < stop; k++) {
       // Pick the next cheapest edge of the graph: suppose it connects X and Y.
-      Edge current = workList.get(0);
+      Edge current = workList.get(k);
+      int set1 = UnionFind.find(sets, current.n1.id);
+      int set2 = UnionFind.find(sets, current.n2.id);
 
       // if set is the same, dont add
-      if (find(representatives, current.n1.id).equals(find(representatives, current.n2.id))) {
+      if (set1 == set2) {
         // already connected
         // discard this edge
         current.setConnected(false);
-        workList.remove(0);
+        edgesRejected.add(current);
       }
       // add
       else {
-        // record this edge in edgesInTree
+        // record this edge in edgesInTree, open even if it started as a wall
+        current.setConnected(true);
         edgesInTree.add(current);
-        // make same set
-        union(representatives, find(representatives, current.n1.id),
-            find(representatives, current.n2.id));
-        workList.remove(0);
+        // make same set, everything in set2 will map to set1
+        sets[set2] = set1;
+      }
+    }
+    kruskalNext = stop;
+    if (stop < workList.size()) {
+      kruskalNanos += System.nanoTime() - start;
+      return true;
+    }
+    int processed = workList.size();
+    workList.clear();
+    this.adjacency = this.toAdjacency(this.adjacency);
+    kruskalNanos += System.nanoTime() - start;
+    MazeMetrics.INSTANCE.recordGeneration(kruskalNanos, processed);
+    kruskalEvent.edges = processed;
+    kruskalEvent.treeEdges = edgesInTree.size();
+    kruskalEvent.commit();
+    return false;
+  }
+
+  // forgets the last generation and search so kruskal can run again on a refilled worklist
+  // every list and array is kept and reused
+  // EFFECT: tree, rejected and braided lists are emptied, search state is cleared
+  void reset() {
+    edgesInTree.clear();
+    edgesRejected.clear();
+    edgesBraided.clear();
+    cameFromEdge = null;
+    mapTrail = null;
+    mapTrailOwner = null;
+  }
+
+  // opens the given fraction of the walls kruskal rejected, chosen at random,
+  // turning the perfect maze into one with loops
+  // EFFECT: chosen edges are connected, moved to edgesBraided, and adjacency is rebuilt
+  public void braid(double fraction, Random r) {
+    if (fraction < 0 || fraction > 1) {
+      throw new IllegalArgumentException("Braid fraction must be between 0 and 1");
+    }
+    int count = (int) Math.round(fraction * edgesRejected.size());
+    // partial fisher-yates: the last count edges of the list get opened
+    for (int i = 0; i < count; i++) {
+      int last = edgesRejected.size() - 1 - i;
+      int pick = r.nextInt(last + 1);
+      Edge tmp = edgesRejected.get(pick);
+      edgesRejected.set(pick, edgesRejected.get(last));
+      edgesRejected.set(last, tmp);
+    }
+    for (int i = 0; i < count; i++) {
+      Edge e = edgesRejected.remove(edgesRejected.size() - 1);
+      e.setConnected(true);
+      edgesBraided.add(e);
+    }
+    this.adjacency = this.toAdjacency(this.adjacency);
+  }
+
+  // the compact adjacency, rebuilt from the edges if walls changed since it was made
+  // EFFECT: adjacency may be rebuilt
+  public MazeAdjacency getAdjacency() {
+    if (this.adjacency == null) {
+      this.adjacency = this.toAdjacency();
+    }
+    return this.adjacency;
+  }
+
+  // records every cell of the board, or every cell touched by the worklist or the tree, by id
+  // EFFECT: cellsById is rebuilt, in place when the size has not changed
+  void indexCells() {
+    if (this.boardCells != null) {
+      this.cellsById = this.boardCells;
+      return;
+    }
+    int maxId = -1;
+    for (int i = 0; i < workList.size(); i++) {
+      Edge e = workList.get(i);
+      maxId = Math.max(maxId, Math.max(e.n1.id, e.n2.id));
+    }
+    for (int i = 0; i < edgesInTree.size(); i++) {
+      Edge e = edgesInTree.get(i);
+      maxId = Math.max(maxId, Math.max(e.n1.id, e.n2.id));
+    }
+    if (this.cellsById == null || this.cellsById.length != maxId + 1) {
+      this.cellsById = new Cell[maxId + 1];
+    }
+    for (int i = 0; i < workList.size(); i++) {
+      Edge e = workList.get(i);
+      cellsById[e.n1.id] = e.n1;
+      cellsById[e.n2.id] = e.n2;
+    }
+    for (int i = 0; i < edgesInTree.size(); i++) {
+      Edge e = edgesInTree.get(i);
+      cellsById[e.n1.id] = e.n1;
+      cellsById[e.n2.id] = e.n2;
+    }
+  }
+
+  // exports every connected edge (tree, braided, or rejected and reopened since)
+  // into a compact adjacency, edge weights become passage costs
+  // each cell's neighbors come in left, right, top, bottom order, like getEdges
+  public MazeAdjacency toAdjacency() {
+    return this.toAdjacency(null);
+  }
 
+  // same as toAdjacency, but rewrites the given adjacency in place when it has
+  // the right size, which it always has when the maze is regenerated on the same board
+  public MazeAdjacency toAdjacency(MazeAdjacency reuse) {
+    if (this.cellsById == null) {
+      this.indexCells();
+    }
+    int total = edgesInTree.size() + edgesBraided.size() + edgesRejected.size();
+    if (scratchFrom == null || scratchFrom.length < total) {
+      scratchFrom = new int[total];
+      scratchTo = new int[total];
+      scratchWeights = new int[total];
+    }
+    int[] from = scratchFrom;
+    int[] to = scratchTo;
+    int[] weights = scratchWeights;
+    int count = 0;
+    for (int i = 0; i < total; i++) {
+      Edge e;
+      if (i < edgesInTree.size()) {
+        e = edgesInTree.get(i);
+      }
+      else if (i < edgesInTree.size() + edgesBraided.size()) {
+        e = edgesBraided.get(i - edgesInTree.size());
+      }
+      else {
+        e = edgesRejected.get(i - edgesInTree.size() - edgesBraided.size());
+      }
+      if (e.isConnected()) {
+        from[count] = e.n1.id;
+        to[count] = e.n2.id;
+        weights[count] = e.weight;
+        count++;
       }
     }
-    return edgesInTree;
+    MazeAdjacency adj;
+    if (reuse != null && reuse.fits(cellsById.length, count) && reuse.weights != null) {
+      adj = reuse;
+      adj.refill(from, to, weights, count);
+    }
+    else {
+      adj = MazeAdjacency.fromEdges(cellsById.length, from, to, weights, count);
+    }
+
+    // at most four neighbors each, so insertion sort by direction
+    for (int id = 0; id < cellsById.length; id++) {
+      for (int i = adj.start(id) + 1; i < adj.end(id); i++) {
+        int other = adj.neighbors[i];
+        int weight = adj.weights[i];
+        int rank = direction(cellsById[id], cellsById[other]);
+        int j = i - 1;
+        while (j >= adj.start(id) && direction(cellsById[id], cellsById[adj.neighbors[j]]) > rank) {
+          adj.neighbors[j + 1] = adj.neighbors[j];
+          adj.weights[j + 1] = adj.weights[j];
+          j--;
+        }
+        adj.neighbors[j + 1] = other;
+        adj.weights[j + 1] = weight;
+      }
+    }
+    return adj;
+  }
+
+  // which side of the from cell the to cell is on:
+  // 0 left, 1 right, 2 top, 3 bottom
+  static int direction(Cell from, Cell to) {
+    if (to.pos.x < from.pos.x) {
+      return 0;
+    }
+    else if (to.pos.x > from.pos.x) {
+      return 1;
+    }
+    else if (to.pos.y < from.pos.y) {
+      return 2;
+    }
+    else {
+      return 3;
+    }
   }
 
   // ==========P2===============
 
-  // finds destination cell and builds hashmap along the way
-  // accumulates hashmap, worklist, and seen cell list
-  // EFFECT: hashmap is updated and worklist is modified
-  // used for both dfs and bfs, only differnce is how items are added to worklist
-  boolean search(Cell source, Cell destination, ArrayList<Cell> workList, ArrayList<Cell> seenList,
-      HashMap<Integer, Integer> cameFromEdge, int length, int index) {
-
-    if (workList.size() > 0) {
-      Cell next = workList.remove(0);
+  // one step of the search, timed as a flight recorder event
+  // the frontier decides the kind of search (bfs, dfs, greedy, random),
+  // this loop does not change between them
+  // cells are marked when they are first put on the frontier and never again,
+  // so each cell is expanded once and keeps the first cell it came from,
+  // which keeps the search linear and correct on mazes with loops
+  // EFFECT: trail is updated and frontier is modified
+  boolean search(Cell destination, Frontier frontier, SearchTrail trail, int length) {
+    SearchStepEvent event = new SearchStepEvent();
+    event.begin();
+    boolean keepGoing = this.searchStep(destination, frontier, trail, length);
+    event.frontier = frontier.size();
+    event.finished = !keepGoing;
+    event.commit();
+    return keepGoing;
+  }
+
+  // one step of search: expands the next cell on the frontier
+  // returns false once the destination is reached or the frontier is empty
+  // everything the search learns goes into the trail's int arrays, so a step allocates nothing
+  // EFFECT: trail is updated and frontier is modified
+  boolean searchStep(Cell destination, Frontier frontier, SearchTrail trail, int length) {
+    if (this.cellsById == null) {
+      this.indexCells();
+    }
+    trail.last = -1;
+    if (frontier.size() > 0) {
+      Cell next = cellsById[frontier.pop()];
       next.highlight(Color.gray);
+      // the source was put on the frontier from outside
+      trail.discovered[next.id] = true;
+      trail.last = next.id;
 
-      // already been seen (maybe not necessary)
-      if (seenList.contains(next)) {
-        return true; // keep going
-      }
       // reached destination
       if (next.equals(destination)) {
-        this.cameFromEdge = cameFromEdge;
         return false; // finished
       }
-      // add neighbors to worklist, and mapping
+      // add neighbors to frontier, and mapping
+      // walks the compact adjacency, so no edge list is built per cell
+      else if (adjacency != null) {
+        for (int i = adjacency.start(next.id); i < adjacency.end(next.id); i++) {
+          this.visitNeighbor(next.id, adjacency.neighbor(i), frontier, trail);
+        }
+      }
+      // not generated by kruskal yet, fall back to the cell's own edges
       else {
         for (Edge e : next.getEdges(length)) {
-          Cell neighborNode = e.getOtherNode(next);
-          if (!seenList.contains(neighborNode)) {
+          this.visitNeighbor(next.id, e.getOtherNode(next).id, frontier, trail);
+        }
+      }
+      // add current to seen
+      trail.seen[trail.seenCount++] = next.id;
+      MazeMetrics.INSTANCE.recordExpansion(frontier.size());
+      return true;
+    }
+    else {
+      return false; // frontier is empty
+    }
+  }
 
-            if (bfs) {
-              workList.add(neighborNode);
-            }
-            else {
-              workList.add(index, neighborNode);
+  // adds an undiscovered neighbor to the frontier and records where it came from
+  // EFFECT: frontier and trail are modified
+  void visitNeighbor(int next, int neighbor, Frontier frontier, SearchTrail trail) {
+    if (!trail.discovered[neighbor]) {
+      trail.discovered[neighbor] = true;
+      frontier.push(neighbor);
+      trail.cameFrom[neighbor] = next;
+    }
+  }
 
-            }
-            cameFromEdge.put(neighborNode.id, next.id); // fix field of field
+  // finds destination cell and builds hashmap along the way
+  // accumulates hashmap, frontier, and seen cell list
+  // the same search as the trail version, with what it finds copied into boxed collections
+  // for callers that want them; the game itself searches with a SearchTrail
+  // EFFECT: hashmap is updated and frontier is modified
+  boolean search(Cell destination, Frontier frontier, ArrayList<Cell> seenList,
+      HashMap<Integer, Integer> cameFromEdge, int length) {
+    SearchStepEvent event = new SearchStepEvent();
+    event.begin();
+    boolean keepGoing = this.searchStep(destination, frontier, seenList, cameFromEdge, length);
+    event.frontier = frontier.size();
+    event.finished = !keepGoing;
+    event.commit();
+    return keepGoing;
+  }
 
-          }
+  // one step of search over a trail kept for the given hashmap
+  // returns false once the destination is reached or the frontier is empty
+  // EFFECT: hashmap and seen list are updated and frontier is modified
+  boolean searchStep(Cell destination, Frontier frontier, ArrayList<Cell> seenList,
+      HashMap<Integer, Integer> cameFromEdge, int length) {
+    if (this.cellsById == null) {
+      this.indexCells();
+    }
+    if (this.mapTrail == null || this.mapTrailOwner != cameFromEdge) {
+      this.mapTrail = new SearchTrail(cellsById.length);
+      this.mapTrailOwner = cameFromEdge;
+    }
+    SearchTrail trail = this.mapTrail;
+    int seenBefore = trail.seenCount;
+    boolean keepGoing = this.searchStep(destination, frontier, trail, length);
+    for (int i = seenBefore; i < trail.seenCount; i++) {
+      seenList.add(cellsById[trail.seen[i]]);
+    }
+    // the neighbors this step discovered are the ones that came from the expanded cell
+    int last = trail.last;
+    if (last != -1 && adjacency != null) {
+      for (int i = adjacency.start(last); i < adjacency.end(last); i++) {
+        int other = adjacency.neighbor(i);
+        if (trail.cameFrom[other] == last) {
+          cameFromEdge.put(other, last);
         }
-        // add current to seen
-        seenList.add(next);
       }
-
-      return true;
     }
-    else {
-      return false; // workList is empty
+    else if (last != -1) {
+      for (Edge e : cellsById[last].getEdges(length)) {
+        int other = e.getOtherNode(cellsById[last]).id;
+        if (trail.cameFrom[other] == last) {
+          cameFromEdge.put(other, last);
+        }
+      }
+    }
+    if (last != -1 && last == destination.id) {
+      this.cameFromEdge = cameFromEdge;
     }
+    return keepGoing;
   }
 
   // makes pathway of edges from cell to starting cell
@@ -138,6 +418,8 @@ class Graph {
   public ArrayList<Integer> reconstruct(HashMap<Integer, Integer> cameFromEdge, int c) {
     // for new
     // hashmap
+    ReconstructEvent event = new ReconstructEvent();
+    event.begin();
     ArrayList<Integer> path = new ArrayList<>();
     int current = c;
 
@@ -148,14 +430,11 @@ class Graph {
       current = prev;
     }
     path.add(0, current); // add start node to the path
+    event.pathLength = path.size();
+    event.commit();
     return path;
   }
 
-  // EFFECT: set bfs boolean
-  void setBFS(boolean b) {
-    this.bfs = true;
-  }
-
   // gets the hashmap of the cameFromEdge
   public HashMap<Integer, Integer> getCameFromEdge() {
     return this.cameFromEdge;
@@ -209,4 +488,56 @@ class Graph {
     return currentCell;
   }
 
-}
\ No newline at end of file
+}
+
+// what a search over a board has done so far, by cell id:
+// the cells it put on its frontier, the cell each was reached from,
+// and the cells it expanded in order
+// the arrays are sized once per board and cleared in place, so searching makes no garbage
+class SearchTrail {
+  boolean[] discovered; // put on the frontier, never again
+  int[] cameFrom; // cell each one was reached from, -1 for the source and unreached cells
+  int[] seen; // expanded cells in order, the destination is not among them
+  int seenCount;
+  int last; // cell taken off the frontier by the latest step, -1 if none
+
+  // constructor
+  SearchTrail(int cells) {
+    this.discovered = new boolean[cells];
+    this.cameFrom = new int[cells];
+    this.seen = new int[cells];
+    this.clear();
+  }
+
+  // EFFECT: forgets the search, keeping the arrays
+  void clear() {
+    Arrays.fill(this.discovered, false);
+    Arrays.fill(this.cameFrom, -1);
+    this.seenCount = 0;
+    this.last = -1;
+  }
+
+  // number of expanded cells
+  int size() {
+    return this.seenCount;
+  }
+
+  // cells from the source to the given cell along cameFrom,
+  // just the cell itself if the search has not reached it
+  ArrayList<Integer> pathTo(int id) {
+    int steps = 0;
+    for (int current = id; this.cameFrom[current] != -1; current = this.cameFrom[current]) {
+      steps++;
+    }
+    ArrayList<Integer> path = new ArrayList<Integer>(steps + 1);
+    for (int i = 0; i <= steps; i++) {
+      path.add(0);
+    }
+    int current = id;
+    for (int i = steps; i >= 0; i--) {
+      path.set(i, current);
+      current = this.cameFrom[current];
+    }
+    return path;
+  }
+}
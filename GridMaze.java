@@ -0,0 +1,200 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+// a generated maze on a width x height grid, stored as two passage bitmaps
+// cell id = row * width + col, the same numbering MazeWorld uses
+class GridMaze {
+  // most cells readFrom accepts, 8 MB per bitmap
+  static final int MAX_CELLS = 1 << 26;
+
+  int width;
+  int height;
+  long seed;
+  long[] rightOpen; // bit id is set if cell id has a passage to its right
+  long[] downOpen; // bit id is set if cell id has a passage below it
+
+  // constructor, every wall closed
+  GridMaze(int width, int height, long seed) {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Maze must be at least 1x1");
+    }
+    this.width = width;
+    this.height = height;
+    this.seed = seed;
+    int words = (int) (((long) width * height + 63) / 64);
+    this.rightOpen = new long[words];
+    this.downOpen = new long[words];
+  }
+
+  // constructor from bitmaps already filled, of ((width * height + 63) / 64) words each
+  GridMaze(int width, int height, long seed, long[] rightOpen, long[] downOpen) {
+    this.width = width;
+    this.height = height;
+    this.seed = seed;
+    this.rightOpen = rightOpen;
+    this.downOpen = downOpen;
+  }
+
+  // reads every row of a maze into bitmaps
+  static GridMaze fromRows(MazeRows rows, long seed) {
+    GridMaze maze = new GridMaze(rows.width(), rows.height(), seed);
+    boolean[] rightOpen = new boolean[rows.width()];
+    boolean[] downOpen = new boolean[rows.width()];
+    for (int row = 0; row < rows.height(); row++) {
+      rows.nextRow(rightOpen, downOpen);
+      for (int col = 0; col < rows.width(); col++) {
+        maze.setRight(row * rows.width() + col, rightOpen[col]);
+        maze.setDown(row * rows.width() + col, downOpen[col]);
+      }
+    }
+    return maze;
+  }
+
+  // EFFECT: writes the size, the seed and both bitmaps
+  void writeTo(DataOutputStream out) throws IOException {
+    out.writeInt(this.width);
+    out.writeInt(this.height);
+    out.writeLong(this.seed);
+    for (int i = 0; i < this.rightOpen.length; i++) {
+      out.writeLong(this.rightOpen[i]);
+    }
+    for (int i = 0; i < this.downOpen.length; i++) {
+      out.writeLong(this.downOpen[i]);
+    }
+  }
+
+  // reads a maze written by writeTo, null if the stream ends before it starts,
+  // so a file of mazes written one after another reads back with a loop
+  // the bitmaps grow as they are read, so a forged size runs out of input
+  // long before it can allocate more than the input holds
+  static GridMaze readFrom(DataInputStream in) throws IOException {
+    int first = in.read();
+    if (first == -1) {
+      return null;
+    }
+    int width = first << 24 | in.readUnsignedByte() << 16 | in.readUnsignedByte() << 8
+        | in.readUnsignedByte();
+    int height = in.readInt();
+    if (width < 1 || height < 1 || (long) width * height > MAX_CELLS) {
+      throw new IOException("Bad maze size " + width + "x" + height);
+    }
+    long seed = in.readLong();
+    int words = (width * height + 63) / 64;
+    long[] rightOpen = readWords(in, words);
+    long[] downOpen = readWords(in, words);
+    return new GridMaze(width, height, seed, rightOpen, downOpen);
+  }
+
+  // reads count longs, growing the array by doubling as they arrive
+  static long[] readWords(DataInputStream in, int count) throws IOException {
+    long[] words = new long[Math.min(count, 64)];
+    for (int i = 0; i < count; i++) {
+      if (i == words.length) {
+        words = Arrays.copyOf(words, Math.min(count, i * 2));
+      }
+      words[i] = in.readLong();
+    }
+    return words;
+  }
+
+  // number of cells
+  int cellCount() {
+    return this.width * this.height;
+  }
+
+  // is there a passage from the cell to its right?
+  boolean openRight(int id) {
+    return (this.rightOpen[id >>> 6] & (1L << id)) != 0;
+  }
+
+  // is there a passage from the cell to the one below?
+  boolean openDown(int id) {
+    return (this.downOpen[id >>> 6] & (1L << id)) != 0;
+  }
+
+  // is there a passage from the cell to its left?
+  boolean openLeft(int id) {
+    return id % this.width != 0 && this.openRight(id - 1);
+  }
+
+  // is there a passage from the cell to the one above?
+  boolean openUp(int id) {
+    return id >= this.width && this.openDown(id - this.width);
+  }
+
+  // EFFECT: opens or closes the wall to the right of the cell
+  void setRight(int id, boolean open) {
+    if (open) {
+      this.rightOpen[id >>> 6] |= 1L << id;
+    }
+    else {
+      this.rightOpen[id >>> 6] &= ~(1L << id);
+    }
+  }
+
+  // EFFECT: opens or closes the wall below the cell
+  void setDown(int id, boolean open) {
+    if (open) {
+      this.downOpen[id >>> 6] |= 1L << id;
+    }
+    else {
+      this.downOpen[id >>> 6] &= ~(1L << id);
+    }
+  }
+
+  // number of open passages
+  int passageCount() {
+    int count = 0;
+    for (int i = 0; i < this.rightOpen.length; i++) {
+      count += Long.bitCount(this.rightOpen[i]) + Long.bitCount(this.downOpen[i]);
+    }
+    return count;
+  }
+
+  // an immutable snapshot of the passages that any number of threads may search
+  FrozenMaze freeze() {
+    return new FrozenMaze(this.toAdjacency(), this.width, this.height);
+  }
+
+  // compact adjacency of the open passages,
+  // each cell's neighbors in left, right, top, bottom order like Cell.getEdges
+  MazeAdjacency toAdjacency() {
+    int n = this.cellCount();
+    int[] offsets = new int[n + 1];
+    for (int id = 0; id < n; id++) {
+      int degree = 0;
+      if (this.openLeft(id)) {
+        degree++;
+      }
+      if (this.openRight(id)) {
+        degree++;
+      }
+      if (this.openUp(id)) {
+        degree++;
+      }
+      if (this.openDown(id)) {
+        degree++;
+      }
+      offsets[id + 1] = offsets[id] + degree;
+    }
+    int[] neighbors = new int[offsets[n]];
+    for (int id = 0; id < n; id++) {
+      int i = offsets[id];
+      if (this.openLeft(id)) {
+        neighbors[i++] = id - 1;
+      }
+      if (this.openRight(id)) {
+        neighbors[i++] = id + 1;
+      }
+      if (this.openUp(id)) {
+        neighbors[i++] = id - this.width;
+      }
+      if (this.openDown(id)) {
+        neighbors[i] = id + this.width;
+      }
+    }
+    return new MazeAdjacency(offsets, neighbors);
+  }
+}
@@ -0,0 +1,369 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// shortest paths over very large mazes by hierarchical pathfinding (HPA*)
+// the grid is cut into square clusters; a portal is a cell next to an open passage
+// across a cluster border, and the abstract graph links
+//   portals on both sides of a crossing, at cost 1
+//   portals of one cluster, at their shortest distance inside the cluster
+// that graph is built once and kept; a query only searches inside the start and goal
+// clusters, runs A* over the portals, and walks inside clusters again only to
+// turn the abstract route back into cells
+// queries share scratch arrays, so one solver answers one query at a time
+class HierarchicalSolver {
+  static final int DEFAULT_CLUSTER_SIZE = 32;
+
+  GridMaze maze;
+  int width;
+  int height;
+  int clusterSize;
+  int clustersWide;
+  int[] portalCells; // cell of each portal, sorted
+  int[] clusterStart; // portals of cluster c are clusterPortals[clusterStart[c]] up to the next start
+  int[] clusterPortals;
+  MazeAdjacency graph; // weighted, over portal indices
+
+  // per query, over portals; stamp tells which entries belong to the current query
+  long[] cost;
+  int[] parent; // previous portal on the route, -1 when reached straight from the start
+  int[] stamp;
+  int query;
+  RadixHeap heap = new RadixHeap();
+  int lastPortal; // portal the best route leaves for the goal from, -1 if it never left
+
+  // per query, over the cells of one cluster
+  int[] startDist;
+  int[] goalDist;
+  int[] localParent;
+  int[] localQueue;
+
+  // constructor, builds the abstract graph
+  HierarchicalSolver(GridMaze maze, int clusterSize) {
+    if (clusterSize < 2) {
+      throw new IllegalArgumentException("Clusters must be at least 2 cells wide");
+    }
+    this.maze = maze;
+    this.width = maze.width;
+    this.height = maze.height;
+    this.clusterSize = clusterSize;
+    this.clustersWide = (this.width + clusterSize - 1) / clusterSize;
+    int clustersHigh = (this.height + clusterSize - 1) / clusterSize;
+
+    // every open passage across a cluster border
+    IntList crossFrom = new IntList();
+    IntList crossTo = new IntList();
+    for (int col = clusterSize - 1; col < this.width - 1; col += clusterSize) {
+      for (int row = 0; row < this.height; row++) {
+        int id = row * this.width + col;
+        if (maze.openRight(id)) {
+          crossFrom.add(id);
+          crossTo.add(id + 1);
+        }
+      }
+    }
+    for (int row = clusterSize - 1; row < this.height - 1; row += clusterSize) {
+      for (int col = 0; col < this.width; col++) {
+        int id = row * this.width + col;
+        if (maze.openDown(id)) {
+          crossFrom.add(id);
+          crossTo.add(id + this.width);
+        }
+      }
+    }
+
+    // portals, sorted and without repeats
+    int[] cells = new int[crossFrom.size * 2];
+    System.arraycopy(crossFrom.items, 0, cells, 0, crossFrom.size);
+    System.arraycopy(crossTo.items, 0, cells, crossFrom.size, crossTo.size);
+    Arrays.sort(cells);
+    int count = 0;
+    for (int i = 0; i < cells.length; i++) {
+      if (count == 0 || cells[count - 1] != cells[i]) {
+        cells[count++] = cells[i];
+      }
+    }
+    this.portalCells = Arrays.copyOf(cells, count);
+
+    // portals grouped by cluster, a counting sort
+    int clusters = this.clustersWide * clustersHigh;
+    this.clusterStart = new int[clusters + 1];
+    for (int p = 0; p < count; p++) {
+      this.clusterStart[this.clusterOf(this.portalCells[p]) + 1]++;
+    }
+    for (int c = 0; c < clusters; c++) {
+      this.clusterStart[c + 1] += this.clusterStart[c];
+    }
+    this.clusterPortals = new int[count];
+    int[] fill = Arrays.copyOf(this.clusterStart, clusters);
+    for (int p = 0; p < count; p++) {
+      this.clusterPortals[fill[this.clusterOf(this.portalCells[p])]++] = p;
+    }
+
+    // distances between the portals of each cluster, clusters in parallel
+    int[][] intra = IntStream.range(0, clusters).parallel().mapToObj(this::intraEdges)
+        .toArray(int[][]::new);
+    int edges = crossFrom.size;
+    for (int[] triples : intra) {
+      edges += triples.length / 3;
+    }
+    int[] from = new int[edges];
+    int[] to = new int[edges];
+    int[] weights = new int[edges];
+    int e = 0;
+    for (int i = 0; i < crossFrom.size; i++) {
+      from[e] = this.portal(crossFrom.items[i]);
+      to[e] = this.portal(crossTo.items[i]);
+      weights[e] = 1;
+      e++;
+    }
+    for (int[] triples : intra) {
+      for (int i = 0; i < triples.length; i += 3) {
+        from[e] = triples[i];
+        to[e] = triples[i + 1];
+        weights[e] = triples[i + 2];
+        e++;
+      }
+    }
+    this.graph = MazeAdjacency.fromEdges(count, from, to, weights, edges);
+
+    this.cost = new long[count];
+    this.parent = new int[count];
+    this.stamp = new int[count];
+    int local = clusterSize * clusterSize;
+    this.startDist = new int[local];
+    this.goalDist = new int[local];
+    this.localParent = new int[local];
+    this.localQueue = new int[local];
+  }
+
+  // constructor with the default cluster size
+  HierarchicalSolver(GridMaze maze) {
+    this(maze, DEFAULT_CLUSTER_SIZE);
+  }
+
+  // number of portals in the abstract graph
+  int portalCount() {
+    return this.portalCells.length;
+  }
+
+  // the cluster holding the cell
+  int clusterOf(int id) {
+    return (id / this.width / this.clusterSize) * this.clustersWide
+        + (id % this.width) / this.clusterSize;
+  }
+
+  // the portal index of a portal cell, -1 if the cell is not a portal
+  int portal(int id) {
+    int p = Arrays.binarySearch(this.portalCells, id);
+    return p < 0 ? -1 : p;
+  }
+
+  // (portal, portal, distance) triples between the portals of one cluster
+  int[] intraEdges(int cluster) {
+    int[] dist = new int[this.clusterSize * this.clusterSize];
+    int[] parents = new int[dist.length];
+    int[] queue = new int[dist.length];
+    IntList triples = new IntList();
+    for (int i = this.clusterStart[cluster]; i < this.clusterStart[cluster + 1]; i++) {
+      int p = this.clusterPortals[i];
+      this.clusterBfs(this.portalCells[p], dist, parents, queue);
+      for (int j = i + 1; j < this.clusterStart[cluster + 1]; j++) {
+        int q = this.clusterPortals[j];
+        int d = dist[this.local(this.portalCells[q])];
+        if (d > 0) {
+          triples.add(p);
+          triples.add(q);
+          triples.add(d);
+        }
+      }
+    }
+    return Arrays.copyOf(triples.items, triples.size);
+  }
+
+  // index of a cell among the cells of its cluster
+  int local(int id) {
+    return (id / this.width % this.clusterSize) * this.clusterSize
+        + id % this.width % this.clusterSize;
+  }
+
+  // breadth first search from the cell that never leaves its cluster
+  // works in local indices, so stepping to a neighbor needs no division
+  // EFFECT: dist holds moves by local index (-1 if unreached),
+  // parents the local index of the previous cell
+  void clusterBfs(int source, int[] dist, int[] parents, int[] queue) {
+    Arrays.fill(dist, -1);
+    int c = this.clusterSize;
+    int row0 = source / this.width / c * c;
+    int col0 = source % this.width / c * c;
+    int rows = Math.min(this.height, row0 + c) - row0;
+    int cols = Math.min(this.width, col0 + c) - col0;
+    int base = row0 * this.width + col0;
+    int head = 0;
+    int tail = 0;
+    int first = this.local(source);
+    queue[tail++] = first;
+    dist[first] = 0;
+    parents[first] = -1;
+    while (head < tail) {
+      int li = queue[head++];
+      int lr = li / c;
+      int lc = li - lr * c;
+      int id = base + lr * this.width + lc;
+      int d = dist[li] + 1;
+      for (int dir = 0; dir < 4; dir++) {
+        int other;
+        if (dir == 0 && lc > 0 && this.maze.openRight(id - 1)) {
+          other = li - 1;
+        }
+        else if (dir == 1 && lc + 1 < cols && this.maze.openRight(id)) {
+          other = li + 1;
+        }
+        else if (dir == 2 && lr > 0 && this.maze.openDown(id - this.width)) {
+          other = li - c;
+        }
+        else if (dir == 3 && lr + 1 < rows && this.maze.openDown(id)) {
+          other = li + c;
+        }
+        else {
+          continue;
+        }
+        if (dist[other] == -1) {
+          dist[other] = d;
+          parents[other] = li;
+          queue[tail++] = other;
+        }
+      }
+    }
+  }
+
+  // moves on the shortest path between the two cells, -1 if there is none
+  // EFFECT: the per query arrays are rewritten
+  synchronized long distance(int start, int goal) {
+    if (start == goal) {
+      this.lastPortal = -1;
+      return 0;
+    }
+    this.query++;
+    this.heap.clear();
+    int startCluster = this.clusterOf(start);
+    int goalCluster = this.clusterOf(goal);
+    this.clusterBfs(goal, this.goalDist, this.localParent, this.localQueue);
+    this.clusterBfs(start, this.startDist, this.localParent, this.localQueue);
+
+    // staying inside the start cluster may already reach the goal
+    long best = Long.MAX_VALUE;
+    this.lastPortal = -1;
+    if (startCluster == goalCluster && this.startDist[this.local(goal)] >= 0) {
+      best = this.startDist[this.local(goal)];
+    }
+    for (int i = this.clusterStart[startCluster]; i < this.clusterStart[startCluster + 1]; i++) {
+      int p = this.clusterPortals[i];
+      int d = this.startDist[this.local(this.portalCells[p])];
+      if (d >= 0) {
+        this.reach(p, d, -1, goal);
+      }
+    }
+
+    // a* over the portals, manhattan distance to the goal never overestimates
+    while (!this.heap.isEmpty()) {
+      int p = this.heap.pop();
+      long f = this.heap.lastKey();
+      if (f >= best) {
+        break;
+      }
+      if (f > this.cost[p] + this.estimate(p, goal)) {
+        continue;
+      }
+      if (this.clusterOf(this.portalCells[p]) == goalCluster) {
+        int d = this.goalDist[this.local(this.portalCells[p])];
+        if (d >= 0 && this.cost[p] + d < best) {
+          best = this.cost[p] + d;
+          this.lastPortal = p;
+        }
+      }
+      for (int i = this.graph.start(p); i < this.graph.end(p); i++) {
+        this.reach(this.graph.neighbor(i), this.cost[p] + this.graph.weight(i), p, goal);
+      }
+    }
+    return best == Long.MAX_VALUE ? -1 : best;
+  }
+
+  // EFFECT: records a cheaper way to the portal and queues it
+  void reach(int p, long through, int from, int goal) {
+    if (this.stamp[p] != this.query || through < this.cost[p]) {
+      this.stamp[p] = this.query;
+      this.cost[p] = through;
+      this.parent[p] = from;
+      this.heap.push(through + this.estimate(p, goal), p);
+    }
+  }
+
+  // manhattan distance from a portal's cell to the goal
+  long estimate(int p, int goal) {
+    int id = this.portalCells[p];
+    return Math.abs(id / this.width - goal / this.width)
+        + Math.abs(id % this.width - goal % this.width);
+  }
+
+  // cells on a shortest path from start to goal, start first, empty if there is none
+  // only the clusters along the abstract route are searched again
+  synchronized ArrayList<Integer> path(int start, int goal) {
+    ArrayList<Integer> path = new ArrayList<Integer>();
+    if (this.distance(start, goal) < 0) {
+      return path;
+    }
+    path.add(start);
+    if (this.lastPortal == -1) {
+      this.appendLocalPath(path, start, goal);
+      return path;
+    }
+
+    // portals of the route, first to last
+    IntList route = new IntList();
+    for (int p = this.lastPortal; p != -1; p = this.parent[p]) {
+      route.add(p);
+    }
+    int at = start;
+    for (int i = route.size - 1; i >= 0; i--) {
+      int next = this.portalCells[route.items[i]];
+      if (this.clusterOf(at) == this.clusterOf(next)) {
+        this.appendLocalPath(path, at, next);
+      }
+      else {
+        path.add(next);
+      }
+      at = next;
+    }
+    this.appendLocalPath(path, at, goal);
+    return path;
+  }
+
+  // EFFECT: appends the cells after from on the shortest path to to inside their cluster
+  void appendLocalPath(ArrayList<Integer> path, int from, int to) {
+    if (from == to) {
+      return;
+    }
+    // searching from the far end leaves parents pointing the way there
+    this.clusterBfs(to, this.startDist, this.localParent, this.localQueue);
+    int base = from - this.local(from) / this.clusterSize * this.width
+        - this.local(from) % this.clusterSize;
+    for (int li = this.localParent[this.local(from)]; li != -1; li = this.localParent[li]) {
+      path.add(base + li / this.clusterSize * this.width + li % this.clusterSize);
+    }
+  }
+}
+
+// a growable array of ints
+class IntList {
+  int[] items = new int[16];
+  int size;
+
+  // EFFECT: appends the value, growing the array when full
+  void add(int value) {
+    if (this.size == this.items.length) {
+      this.items = Arrays.copyOf(this.items, this.size * 2);
+    }
+    this.items[this.size++] = value;
+  }
+}
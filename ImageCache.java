@@ -0,0 +1,85 @@
+import java.awt.Color;
+
+import javalib.worldimages.OutlineMode;
+import javalib.worldimages.RectangleImage;
+import javalib.worldimages.WorldImage;
+
+// shared rectangle images, keyed by (outline mode, color, width, height)
+// javalib images are never changed once built, so every cell and wall of a color
+// and size can be drawn with the same one instead of a new image per frame
+// the key is packed into a long and looked up in an open addressing table,
+// so a lookup that hits allocates nothing
+class ImageCache {
+  static final int MAX_SIDE = 1 << 15; // larger images are built, not cached
+
+  static long[] keys = new long[256];
+  static WorldImage[] images = new WorldImage[256];
+  static int size;
+
+  // a solid rectangle of the given size and color
+  static WorldImage solid(int width, int height, Color color) {
+    return get(OutlineMode.SOLID, width, height, color);
+  }
+
+  // an outlined rectangle of the given size and color
+  static WorldImage outline(int width, int height, Color color) {
+    return get(OutlineMode.OUTLINE, width, height, color);
+  }
+
+  // the cached rectangle, built on the first request
+  static synchronized WorldImage get(OutlineMode mode, int width, int height, Color color) {
+    if (width < 0 || height < 0 || width >= MAX_SIDE || height >= MAX_SIDE) {
+      return new RectangleImage(width, height, mode, color);
+    }
+    long key = key(mode, width, height, color);
+    int slot = slot(key, keys.length);
+    while (images[slot] != null) {
+      if (keys[slot] == key) {
+        return images[slot];
+      }
+      slot = (slot + 1) & (keys.length - 1);
+    }
+    WorldImage image = new RectangleImage(width, height, mode, color);
+    keys[slot] = key;
+    images[slot] = image;
+    size++;
+    if (size * 2 > keys.length) {
+      grow();
+    }
+    return image;
+  }
+
+  // packs the argb color, the sizes and the mode into one key
+  static long key(OutlineMode mode, int width, int height, Color color) {
+    long packed = ((long) width << 16 | height) << 1 | (mode == OutlineMode.SOLID ? 1 : 0);
+    return packed << 32 | (color.getRGB() & 0xffffffffL);
+  }
+
+  // home slot of a key in a table of the given power of two length
+  static int slot(long key, int length) {
+    return (int) (SplitMix.next(key) & (length - 1));
+  }
+
+  // EFFECT: doubles the table and reinserts every image
+  static void grow() {
+    long[] oldKeys = keys;
+    WorldImage[] oldImages = images;
+    keys = new long[oldKeys.length * 2];
+    images = new WorldImage[oldImages.length * 2];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldImages[i] != null) {
+        int slot = slot(oldKeys[i], keys.length);
+        while (images[slot] != null) {
+          slot = (slot + 1) & (keys.length - 1);
+        }
+        keys[slot] = oldKeys[i];
+        images[slot] = oldImages[i];
+      }
+    }
+  }
+
+  // number of images cached
+  static synchronized int size() {
+    return size;
+  }
+}
@@ -0,0 +1,180 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+// keeps a tree of paths from a root cell up to date while walls are edited
+// parent[id] is the previous cell on the way back to the root,
+// ROOT for the root itself and UNREACHED for cells cut off from it
+// opening or closing one wall only touches the part of the tree it affects,
+// never the whole maze
+class IncrementalSolver {
+  static final int ROOT = -1;
+  static final int UNREACHED = -2;
+
+  Cell[] cells; // indexed by id
+  int root;
+  int[] parent;
+  int[] queue; // scratch, reused by every repair
+  int[] subtree; // scratch, cells cut off by the last closed wall
+
+  // constructor, runs one full breadth first search from the root
+  IncrementalSolver(Cell[] cells, int root) {
+    this.cells = cells;
+    this.root = root;
+    this.parent = new int[cells.length];
+    this.queue = new int[cells.length];
+    this.subtree = new int[cells.length];
+    this.recompute();
+  }
+
+  // forgets every repair and searches again from the root, reusing the arrays
+  // EFFECT: parent is rewritten
+  void recompute() {
+    Arrays.fill(this.parent, UNREACHED);
+    this.parent[this.root] = ROOT;
+    this.attachFrom(this.root);
+  }
+
+  // is the cell connected to the root?
+  boolean reached(int id) {
+    return this.parent[id] != UNREACHED;
+  }
+
+  // cells from the root to the goal, root first, empty if the goal is cut off
+  ArrayList<Integer> pathTo(int goal) {
+    ArrayList<Integer> path = new ArrayList<Integer>();
+    if (!this.reached(goal)) {
+      return path;
+    }
+    for (int id = goal; id != ROOT; id = this.parent[id]) {
+      path.add(id);
+    }
+    Collections.reverse(path);
+    return path;
+  }
+
+  // is the cell on the path from the root to the goal?
+  // walks the goal's parent links, so it costs the path length and allocates nothing
+  boolean onPath(int goal, int id) {
+    if (!this.reached(goal)) {
+      return false;
+    }
+    for (int current = goal; current != ROOT; current = this.parent[current]) {
+      if (current == id) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // call after the edge's connected flag has changed
+  // EFFECT: parent is repaired around the edge
+  void wallChanged(Edge e) {
+    int a = e.n1.id;
+    int b = e.n2.id;
+    if (e.isConnected()) {
+      this.opened(a, b);
+    }
+    else {
+      this.closed(a, b);
+    }
+  }
+
+  // a new passage can only connect a cut off part to the root's part
+  // EFFECT: the cut off side is attached through the new passage
+  void opened(int a, int b) {
+    if (this.reached(a) && !this.reached(b)) {
+      this.parent[b] = a;
+      this.attachFrom(b);
+    }
+    else if (this.reached(b) && !this.reached(a)) {
+      this.parent[a] = b;
+      this.attachFrom(a);
+    }
+  }
+
+  // only closing a tree link changes anything: the child's subtree is cut off,
+  // then reattached through any other open passage out of it
+  // EFFECT: the subtree is reattached, or left UNREACHED
+  void closed(int a, int b) {
+    int child;
+    if (this.parent[b] == a) {
+      child = b;
+    }
+    else if (this.parent[a] == b) {
+      child = a;
+    }
+    else {
+      return;
+    }
+
+    // collect the subtree by following child links down from child
+    int size = 0;
+    this.subtree[size++] = child;
+    for (int i = 0; i < size; i++) {
+      Cell cell = this.cells[this.subtree[i]];
+      for (int dir = 0; dir < 4; dir++) {
+        int other = openNeighbor(cell, dir);
+        if (other != -1 && this.parent[other] == cell.id) {
+          this.subtree[size++] = other;
+        }
+      }
+    }
+    for (int i = 0; i < size; i++) {
+      this.parent[this.subtree[i]] = UNREACHED;
+    }
+
+    // the first open passage from the subtree to the rest of the tree wins
+    for (int i = 0; i < size; i++) {
+      Cell cell = this.cells[this.subtree[i]];
+      for (int dir = 0; dir < 4; dir++) {
+        int other = openNeighbor(cell, dir);
+        if (other != -1 && this.reached(other)) {
+          this.parent[cell.id] = other;
+          this.attachFrom(cell.id);
+          return;
+        }
+      }
+    }
+  }
+
+  // breadth first search from an attached cell into unreached cells
+  // EFFECT: every unreached cell connected to start gets a parent
+  void attachFrom(int start) {
+    int head = 0;
+    int tail = 0;
+    this.queue[tail++] = start;
+    while (head < tail) {
+      Cell cell = this.cells[this.queue[head++]];
+      for (int dir = 0; dir < 4; dir++) {
+        int other = openNeighbor(cell, dir);
+        if (other != -1 && !this.reached(other)) {
+          this.parent[other] = cell.id;
+          this.queue[tail++] = other;
+        }
+      }
+    }
+  }
+
+  // id of the cell through the open passage on the given side
+  // (0 left, 1 right, 2 top, 3 bottom), -1 if there is a wall or the border
+  static int openNeighbor(Cell cell, int dir) {
+    Edge e;
+    if (dir == 0) {
+      e = cell.left;
+    }
+    else if (dir == 1) {
+      e = cell.right;
+    }
+    else if (dir == 2) {
+      e = cell.top;
+    }
+    else {
+      e = cell.bottom;
+    }
+    if (e == null || !e.isConnected()) {
+      return -1;
+    }
+    return e.getOtherNode(cell).id;
+  }
+}
@@ -0,0 +1,87 @@
+import java.util.Arrays;
+
+// histogram of latencies in nanoseconds with logarithmic buckets
+// every power of two is split into SUB_BUCKETS linear buckets,
+// so any recorded value is off by at most 1/SUB_BUCKETS of itself
+// recording is a few shifts and one array increment, with no allocation
+class LatencyHistogram {
+  static final int SUB_BITS = 3;
+  static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+  long[] counts = new long[64 * SUB_BUCKETS];
+  long total;
+  long max;
+
+  // EFFECT: counts one latency
+  void record(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    this.counts[bucket(nanos)]++;
+    this.total++;
+    if (nanos > this.max) {
+      this.max = nanos;
+    }
+  }
+
+  // bucket of a value: values below SUB_BUCKETS get one bucket each,
+  // larger values are grouped by highest bit, then by the next SUB_BITS bits
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int magnitude = 63 - Long.numberOfLeadingZeros(value);
+    int sub = (int) (value >>> (magnitude - SUB_BITS)) & (SUB_BUCKETS - 1);
+    return (magnitude - SUB_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  // largest value that falls into the given bucket
+  static long upperBound(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int magnitude = bucket / SUB_BUCKETS + SUB_BITS - 1;
+    long sub = bucket % SUB_BUCKETS;
+    long low = (1L << magnitude) | (sub << (magnitude - SUB_BITS));
+    return low + (1L << (magnitude - SUB_BITS)) - 1;
+  }
+
+  // latency below which the given fraction of recorded values fall
+  long percentile(double fraction) {
+    if (this.total == 0) {
+      return 0;
+    }
+    long rank = (long) Math.ceil(fraction * this.total);
+    long seen = 0;
+    for (int i = 0; i < this.counts.length; i++) {
+      seen += this.counts[i];
+      if (seen >= rank && seen > 0) {
+        return Math.min(upperBound(i), this.max);
+      }
+    }
+    return this.max;
+  }
+
+  // number of recorded values above the given latency
+  long countAbove(long nanos) {
+    long above = 0;
+    for (int i = bucket(nanos) + 1; i < this.counts.length; i++) {
+      above += this.counts[i];
+    }
+    return above;
+  }
+
+  // EFFECT: forgets every recorded value
+  void reset() {
+    Arrays.fill(this.counts, 0);
+    this.total = 0;
+    this.max = 0;
+  }
+
+  // one line summary in milliseconds
+  String dump() {
+    return String.format("count=%d p50=%.3fms p99=%.3fms p999=%.3fms max=%.3fms",
+        this.total, this.percentile(0.5) / 1e6, this.percentile(0.99) / 1e6,
+        this.percentile(0.999) / 1e6, this.max / 1e6);
+  }
+}
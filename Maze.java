@@ -1,11 +1,41 @@
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import tester.*;
 import javalib.impworld.*;
 import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
 import javalib.worldimages.*;
+import javax.imageio.ImageIO;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.swing.JScrollPane;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 // Represents a single square of the game area
 class Cell {
@@ -28,7 +58,7 @@ class Cell {
 
   // draws the cell
   WorldImage drawCell() {
-    return new RectangleImage(20, 20, OutlineMode.SOLID, color);
+    return ImageCache.solid(20, 20, color);
   }
 
   // checks if cell should have a left
@@ -53,7 +83,12 @@ class Cell {
 
   // places the drawn cell onto a given image
   WorldScene placeCell(WorldScene image) {
-    image.placeImageXY(this.drawCell(), this.pos.x, this.pos.y);
+    return this.placeCell(image, 0, 0);
+  }
+
+  // places the drawn cell onto a given image, shifted left and up by the given offsets
+  WorldScene placeCell(WorldScene image, int offsetX, int offsetY) {
+    image.placeImageXY(this.drawCell(), this.pos.x - offsetX, this.pos.y - offsetY);
     return image;
   }
 
@@ -180,17 +215,28 @@ class MazeWorld extends World {
   int length;
   public static final int SCENE_SIZE = 520;
   WorldScene background = new WorldScene(SCENE_SIZE, SCENE_SIZE);
+  Viewport camera;
 
   boolean animate;
   Cell cellFirst;
   Cell cellLast;
   Cell currentCell;
-  ArrayList<Cell> searchWorkList = new ArrayList<Cell>();
-  ArrayList<Cell> seenList = new ArrayList<Cell>();
-  HashMap<Integer, Integer> searchMap = new HashMap<Integer, Integer>();
-  int addIndex;
+  Frontier searchWorkList = new FifoFrontier(); // cell ids waiting to be searched
+  SearchTrail searched; // what the animated search has expanded and where each cell came from
   int wrongMoves;
   boolean win;
+  double braid; // fraction of rejected walls opened again after kruskal
+  IncrementalSolver solver; // paths from cellFirst, kept up to date as walls are edited
+  MoveLog moves = new MoveLog(); // arrow moves that changed currentCell, cleared on reset
+  MazePool pool; // mazes generated ahead for resets, null to run kruskal on reset
+  int[] weightCounts; // counting sort buffers, kept between resets
+  WorldImage movesImage; // wrong moves text, rebuilt when wrongMoves changes
+  int movesShown; // the count movesImage shows
+  static final WorldImage WIN_IMAGE = new TextImage("You win omg", 20, Color.black);
+  Edge[] sortBuffer;
+  int edgesPerTick; // kruskal edges looked at per tick while generating, 0 to generate at once
+  boolean generating; // kruskal is still running, the player cannot move yet
+  boolean wallsEdited; // a wall was toggled during the game, so the move log cannot back it up
 
   // constructor for maze world
   // creates cells, creates edges,
@@ -198,25 +244,127 @@ class MazeWorld extends World {
   // EFFECT: cells added and removed from worklist
   // edges created in edges lists
   MazeWorld(int length, Random rand) {
+    this(length, rand, 0);
+  }
+
+  // constructor for a braided maze world
+  // after kruskal, the given fraction of walls is opened again to make loops
+  MazeWorld(int length, Random rand, double braid) {
     animate = false;
     this.length = length;
     this.r = rand;
+    this.braid = braid;
     this.createCells(length);
     this.createEdges(length, r);
-    this.edgesWorkList.sort((e1, e2) -> e1.compareTo(e2));
-    spanningTree = new Graph(new ArrayList<Edge>(), edgesWorkList);
+    this.sortEdgesByWeight();
+    spanningTree = new Graph(new ArrayList<Edge>(), edgesWorkList, this.boardById());
     edgesSpanningTree = spanningTree.kruskal();
+    this.finishGeneration();
+    this.startGame();
+  }
 
-    // init search variables
+  // constructor for a maze world that shows its first frame before the maze exists
+  // every wall starts closed and kruskal opens edgesPerTick edges' worth of walls
+  // each tick, so the window animates the maze being carved; keys are ignored until it ends
+  // EFFECT: cells and edges are created and sorted, kruskal is started but not run
+  MazeWorld(int length, Random rand, double braid, int edgesPerTick) {
+    if (edgesPerTick < 1) {
+      throw new IllegalArgumentException("At least one edge per tick is needed");
+    }
+    animate = false;
+    this.length = length;
+    this.r = rand;
+    this.braid = braid;
+    this.edgesPerTick = edgesPerTick;
+    this.createCells(length);
+    this.createEdges(length, r);
+    for (int i = 0; i < edgesAll.size(); i++) {
+      edgesAll.get(i).setConnected(false);
+    }
+    this.sortEdgesByWeight();
+    spanningTree = new Graph(new ArrayList<Edge>(), edgesWorkList, this.boardById());
+    edgesSpanningTree = spanningTree.edgesInTree;
+    spanningTree.beginKruskal();
+    generating = true;
+    this.startGame();
+  }
+
+  // constructor for a maze made by MazeGenerator
+  // EFFECT: cells and edges are created, then opened to match the maze
+  MazeWorld(GridMaze maze) {
+    if (maze.width != maze.height) {
+      throw new IllegalArgumentException("MazeWorld boards are square");
+    }
+    animate = false;
+    this.length = maze.width;
+    this.r = new Random(maze.seed);
+    this.createCells(length);
+    this.createEdges(length, r);
+    this.applyMaze(maze);
+    this.finishGeneration();
+    this.startGame();
+  }
+
+  // constructor for a maze world that resets from a pool of mazes generated ahead
+  // EFFECT: the first maze is taken from the pool
+  MazeWorld(MazePool pool) {
+    this(pool.take());
+    this.pool = pool;
+  }
+
+  // init search variables and the camera, then draws the first frame
+  // EFFECT: the player and the search start at the top left cell
+  private void startGame() {
     cellFirst = board.get(0).get(0);
     cellLast = board.get(length - 1).get(length - 1);
     currentCell = board.get(0).get(0);
-    searchWorkList.add(cellFirst);
+    searched = new SearchTrail(length * length);
+    searchWorkList.push(cellFirst.id);
     wrongMoves = 0;
     win = false;
+    wallsEdited = false;
+    camera = new Viewport(SCENE_SIZE, SCENE_SIZE, length, length);
     this.makeScene();
   }
 
+  // opens every edge that is a passage of the given maze and closes the rest,
+  // instead of running kruskal
+  // EFFECT: edge connections, edgesSpanningTree and spanningTree are rewritten
+  void applyMaze(GridMaze maze) {
+    edgesWorkList.clear();
+    if (spanningTree == null) {
+      spanningTree = new Graph(new ArrayList<Edge>(), edgesWorkList, this.boardById());
+    }
+    else {
+      spanningTree.reset();
+    }
+    edgesSpanningTree = spanningTree.edgesInTree;
+    for (int row = 0; row < length; row++) {
+      for (int col = 0; col < length; col++) {
+        Cell cell = board.get(row).get(col);
+        if (cell.right != null) {
+          cell.right.setConnected(maze.openRight(cell.id));
+          if (cell.right.isConnected()) {
+            edgesSpanningTree.add(cell.right);
+          }
+        }
+        if (cell.bottom != null) {
+          cell.bottom.setConnected(maze.openDown(cell.id));
+          if (cell.bottom.isConnected()) {
+            edgesSpanningTree.add(cell.bottom);
+          }
+        }
+      }
+    }
+    for (int i = 0; i < edgesAll.size(); i++) {
+      if (!edgesAll.get(i).isConnected()) {
+        spanningTree.edgesRejected.add(edgesAll.get(i));
+      }
+    }
+    spanningTree.indexCells();
+    spanningTree.adjacency = spanningTree.toAdjacency(spanningTree.adjacency);
+  }
+
   // creates the array list of array list of cells
   // EFFECT: adds array list of cells to board
   // adds cells to each array list
@@ -237,6 +385,18 @@ class MazeWorld extends World {
     }
   }
 
+  // every cell of the board, indexed by id
+  Cell[] boardById() {
+    Cell[] cells = new Cell[length * length];
+    for (int row = 0; row < length; row++) {
+      for (int col = 0; col < length; col++) {
+        Cell cell = board.get(row).get(col);
+        cells[cell.id] = cell;
+      }
+    }
+    return cells;
+  }
+
   // creates all edges and assigns them to cells
   // EFFECT: sets the edge fields for each cell
   void createEdges(int length, Random rand) {
@@ -263,48 +423,149 @@ class MazeWorld extends World {
   }
 
   // make scene for maze
+  // only the cells inside the camera window are drawn
   public WorldScene makeScene() {
-    for (int row = 0; row < length; row++) {
-      for (int col = 0; col < length; col++) {
-        board.get(row).get(col).placeCell(background);
-      }
+    SceneEvent event = new SceneEvent();
+    event.begin();
+    long start = System.nanoTime();
+    background = new WorldScene(SCENE_SIZE, SCENE_SIZE);
+    Cell target = currentCell;
+    if (animate && searchWorkList.size() > 0) {
+      target = this.getCellFromId(searchWorkList.peek());
     }
+    camera.follow(target.id % length, target.id / length);
 
-    for (Edge e : edgesAll) {
-      // if edge e is not in the spanning tree, draw a wall
-      if (!edgesSpanningTree.contains(e)) {
-        if (e.n1.pos.x == e.n2.pos.x) {
-          // background.placeImageXY(e.drawEdgeHorizontal(), e.n1.pos.x, e.n1.pos.y + 10);
-          // fof fixed
-          e.placeEdgeHorizontal(background);
-        }
-        else {
-          // background.placeImageXY(e.drawEdgeVertical(), e.n1.pos.x + 10, e.n1.pos.y);
-          // fof fixed
-          e.placeEdgeVertical(background);
-
-        }
-      }
+    int images;
+    if (camera.overview) {
+      images = this.drawOverview();
     }
-    WorldImage border = new RectangleImage(length * 40, length * 40, OutlineMode.OUTLINE,
-        Color.black);
+    else {
+      images = this.drawWindow();
+    }
+
+    WorldImage border = ImageCache.outline(length * 40, length * 40, Color.black);
     background.placeImageXY(border, 0, 0);
 
-    String moves = "Wrong moves: " + wrongMoves;
-    WorldImage movesImage = new TextImage(moves, 20, Color.black);
-    WorldImage box = new RectangleImage(200, 50, OutlineMode.SOLID, Color.white);
+    // the text is only rebuilt when the count it shows changes
+    if (movesImage == null || movesShown != wrongMoves) {
+      movesImage = new TextImage("Wrong moves: " + wrongMoves, 20, Color.black);
+      movesShown = wrongMoves;
+    }
+    WorldImage box = ImageCache.solid(200, 50, Color.white);
     background.placeImageXY(box, SCENE_SIZE / 2, SCENE_SIZE - 20);
     background.placeImageXY(movesImage, SCENE_SIZE / 2, SCENE_SIZE - 10);
+    images += 3;
 
     if (win) {
-      String win = "You win omg";
-      WorldImage winImage = new TextImage(win, 20, Color.black);
-      background.placeImageXY(winImage, SCENE_SIZE / 2, SCENE_SIZE - 30);
+      background.placeImageXY(WIN_IMAGE, SCENE_SIZE / 2, SCENE_SIZE - 30);
+      images++;
 
     }
+    MazeMetrics.INSTANCE.recordScene(System.nanoTime() - start, images);
+    event.images = images;
+    event.commit();
     return background;
   }
 
+  // draws the cells and walls inside the camera window
+  // returns the number of images placed
+  // EFFECT: images are placed onto background
+  int drawWindow() {
+    int offsetX = camera.offsetX();
+    int offsetY = camera.offsetY();
+    int lastRow = camera.firstRow + camera.visibleRows();
+    int lastCol = camera.firstCol + camera.visibleCols();
+    int images = 0;
+
+    for (int row = camera.firstRow; row < lastRow; row++) {
+      for (int col = camera.firstCol; col < lastCol; col++) {
+        board.get(row).get(col).placeCell(background, offsetX, offsetY);
+        images++;
+      }
+    }
+
+    // a wall is an edge that is not connected
+    for (int row = camera.firstRow; row < lastRow; row++) {
+      for (int col = camera.firstCol; col < lastCol; col++) {
+        Cell cell = board.get(row).get(col);
+        if (cell.right != null && !cell.right.isConnected()) {
+          cell.right.placeEdgeVertical(background, offsetX, offsetY);
+          images++;
+        }
+        if (cell.bottom != null && !cell.bottom.isConnected()) {
+          cell.bottom.placeEdgeHorizontal(background, offsetX, offsetY);
+          images++;
+        }
+      }
+    }
+    return images;
+  }
+
+  // draws the whole board zoomed out, one block per group of cells
+  // each block takes the color of the cell in its middle,
+  // and the block holding the player is drawn red
+  // returns the number of images placed
+  // EFFECT: images are placed onto background
+  int drawOverview() {
+    int group = camera.cellsPerBlock();
+    int blocks = (length + group - 1) / group;
+    int size = Viewport.BLOCK_SIZE;
+    int playerBlockRow = (currentCell.id / length) / group;
+    int playerBlockCol = (currentCell.id % length) / group;
+
+    for (int blockRow = 0; blockRow < blocks; blockRow++) {
+      for (int blockCol = 0; blockCol < blocks; blockCol++) {
+        Color color;
+        if (blockRow == playerBlockRow && blockCol == playerBlockCol) {
+          color = Color.red;
+        }
+        else {
+          color = this.blockColor(blockRow * group, blockCol * group, group);
+        }
+        background.placeImageXY(ImageCache.solid(size, size, color),
+            blockCol * size + size / 2, blockRow * size + size / 2);
+      }
+    }
+    return blocks * blocks;
+  }
+
+  // the color of one overview block: the average color of its cells,
+  // darkened by the share of their right and bottom sides that are walls
+  // channels are rounded to 16 levels so the block images stay few and shared
+  Color blockColor(int firstRow, int firstCol, int group) {
+    int red = 0;
+    int green = 0;
+    int blue = 0;
+    int cells = 0;
+    int sides = 0;
+    int walls = 0;
+    for (int row = firstRow; row < Math.min(length, firstRow + group); row++) {
+      for (int col = firstCol; col < Math.min(length, firstCol + group); col++) {
+        Cell cell = board.get(row).get(col);
+        red += cell.color.getRed();
+        green += cell.color.getGreen();
+        blue += cell.color.getBlue();
+        cells++;
+        if (cell.right != null) {
+          sides++;
+          walls += cell.right.isConnected() ? 0 : 1;
+        }
+        if (cell.bottom != null) {
+          sides++;
+          walls += cell.bottom.isConnected() ? 0 : 1;
+        }
+      }
+    }
+    double shade = sides == 0 ? 1 : 1 - 0.5 * walls / sides;
+    return new Color(level(red * shade / cells), level(green * shade / cells),
+        level(blue * shade / cells));
+  }
+
+  // rounds a channel value to the nearest of 16 evenly spaced levels
+  static int level(double channel) {
+    return (int) Math.min(255, Math.round(channel / 17) * 17);
+  }
+
   // gets cell given an id
   Cell getCellFromId(int id) {
     int row = id / length;
@@ -314,34 +575,108 @@ class MazeWorld extends World {
   }
 
   // initialized all variables to start the maze
+  // the board, its cells and edges, every list and the graph are kept:
+  // only weights, walls, colors and search state are rewritten in place,
+  // so a reset makes no garbage however big the board is
+  // with a pool the next maze is already generated and only has to be applied
+  // (the scene is drawn again on the next tick)
   // EFFECT: changes all the fields to the default
   public void initialize() {
-    board = new ArrayList<ArrayList<Cell>>();
-    edgesWorkList = new ArrayList<Edge>(); // this list gets modified
-    edgesAll = new ArrayList<Edge>(); // all edges here
-
-    edgesSpanningTree = new ArrayList<Edge>(); // only edges in spanning tree
+    for (int row = 0; row < length; row++) {
+      for (int col = 0; col < length; col++) {
+        board.get(row).get(col).highlight(Color.white);
+      }
+    }
 
-    searchWorkList = new ArrayList<Cell>();
-    seenList = new ArrayList<Cell>();
-    searchMap = new HashMap<Integer, Integer>();
+    searchWorkList.clear();
+    searched.clear();
+    moves.clear();
 
     animate = false;
-    this.r = new Random();
-    this.createCells(length);
-    this.createEdges(length, r);
-    this.edgesWorkList.sort((e1, e2) -> e1.compareTo(e2));
-    spanningTree = new Graph(new ArrayList<Edge>(), edgesWorkList);
-    edgesSpanningTree = spanningTree.kruskal();
+    if (pool != null) {
+      this.applyMaze(pool.take());
+    }
+    else {
+      // new weights, drawn in the same order createEdges draws them
+      // a stepped world closes every wall and carves the maze again over the next ticks
+      for (int i = 0; i < edgesAll.size(); i++) {
+        Edge e = edgesAll.get(i);
+        e.setWeight(r.nextInt(1000));
+        e.setConnected(edgesPerTick == 0);
+      }
+      this.sortEdgesByWeight();
+      spanningTree.reset();
+      if (edgesPerTick > 0) {
+        spanningTree.beginKruskal();
+        generating = true;
+      }
+      else {
+        edgesSpanningTree = spanningTree.kruskal();
+      }
+    }
+    if (!generating) {
+      this.finishGeneration();
+    }
 
     // init search variables
     cellFirst = board.get(0).get(0);
     cellLast = board.get(length - 1).get(length - 1);
     currentCell = board.get(0).get(0);
-    searchWorkList.add(cellFirst);
+    searchWorkList.push(cellFirst.id);
     wrongMoves = 0;
     win = false;
-    this.makeScene();
+    wallsEdited = false;
+  }
+
+  // braids the finished tree and brings the solver up to date,
+  // making it the first time, so wall edits during play are repaired from then on
+  // EFFECT: rejected walls may be opened, solver is made or recomputed
+  void finishGeneration() {
+    if (braid > 0) {
+      spanningTree.braid(braid, r);
+    }
+    if (solver == null) {
+      solver = new IncrementalSolver(spanningTree.cellsById, board.get(0).get(0).id);
+    }
+    else {
+      solver.recompute();
+    }
+  }
+
+  // stable counting sort of edgesAll by weight into edgesWorkList
+  // weights are small ints, so this is linear, and its buffers are kept for the next reset
+  // EFFECT: edgesWorkList is refilled in weight order
+  void sortEdgesByWeight() {
+    int max = 0;
+    for (int i = 0; i < edgesAll.size(); i++) {
+      max = Math.max(max, edgesAll.get(i).weight);
+    }
+    if (weightCounts == null || weightCounts.length < max + 2) {
+      weightCounts = new int[max + 2];
+    }
+    else {
+      Arrays.fill(weightCounts, 0);
+    }
+    if (sortBuffer == null || sortBuffer.length != edgesAll.size()) {
+      sortBuffer = new Edge[edgesAll.size()];
+    }
+
+    for (int i = 0; i < edgesAll.size(); i++) {
+      weightCounts[edgesAll.get(i).weight + 1]++;
+    }
+    for (int w = 1; w < weightCounts.length; w++) {
+      weightCounts[w] += weightCounts[w - 1];
+    }
+    for (int i = 0; i < edgesAll.size(); i++) {
+      Edge e = edgesAll.get(i);
+      sortBuffer[weightCounts[e.weight]] = e;
+      weightCounts[e.weight]++;
+    }
+
+    edgesWorkList.clear();
+    for (int i = 0; i < sortBuffer.length; i++) {
+      edgesWorkList.add(sortBuffer[i]);
+    }
   }
 
   // on key
@@ -349,64 +684,95 @@ class MazeWorld extends World {
   // EFFECT: depending on key,
   // changes animation field, colors of cells, and initial fields
   public void onKeyEvent(String key) {
+    MazeMetrics.INSTANCE.recordKeyPress();
+    // nothing can be searched or walked before the maze is finished
+    if (generating) {
+      return;
+    }
+    Cell before = currentCell;
+
     // bfs
     if (key.equals("b")) {
       this.animate = true;
-      spanningTree.setBFS(true);
-      // this.addIndex = searchWorkList.size() - 1;
+      this.switchFrontier(new FifoFrontier(length * length));
     }
 
     // dfs
     if (key.equals("d")) {
       this.animate = true;
-      this.addIndex = 0;
+      this.switchFrontier(new LifoFrontier(length * length));
+    }
+
+    // greedy, closest to the goal first
+    if (key.equals("g")) {
+      this.animate = true;
+      this.switchFrontier(new PriorityFrontier(this.distancesToGoal()));
+    }
+
+    // cheapest path, edge weights as traversal costs
+    if (key.equals("w")) {
+      this.darkHighLightAll(this.cheapestPath());
+    }
+
+    // random pick
+    if (key.equals("x")) {
+      this.animate = true;
+      this.switchFrontier(new RandomFrontier(r.nextLong()));
     }
 
     // visuals
     if (key.equals("v")) {
-      for (Cell c : seenList) {
-        if (!spanningTree.reconstruct(searchMap, cellLast.getId()).contains(c.getId())) {
-          c.changeVisibility();
+      boolean[] onPath = new boolean[length * length];
+      for (int id : this.solution().pathTo(cellLast.id)) {
+        onPath[id] = true;
+      }
+      for (int i = 0; i < searched.size(); i++) {
+        if (!onPath[searched.seen[i]]) {
+          this.getCellFromId(searched.seen[i]).changeVisibility();
         }
       }
     }
 
+    // zoomed out overview
+    if (key.equals("z")) {
+      camera.toggleOverview();
+    }
+
     // reset board
     if (key.equals("r")) {
       this.initialize();
     }
 
+    // moves after the win are ignored, as GameSession does
+    if (win) {
+      return;
+    }
+
     if (key.equals("up")) {
       currentCell = this.spanningTree.moveUp(currentCell);
-
-      if (!spanningTree.reconstruct(searchMap, cellLast.getId()).contains(currentCell.getId())) {
-        wrongMoves++;
-      }
-
     }
 
     if (key.equals("down")) {
       currentCell = this.spanningTree.moveDown(currentCell, length);
-
-      if (!spanningTree.reconstruct(searchMap, cellLast.getId()).contains(currentCell.getId())) {
-        wrongMoves++;
-      }
     }
 
     if (key.equals("left")) {
       currentCell = this.spanningTree.moveLeft(currentCell);
-
-      if (!spanningTree.reconstruct(searchMap, cellLast.getId()).contains(currentCell.getId())) {
-        wrongMoves++;
-      }
     }
 
     if (key.equals("right")) {
       currentCell = this.spanningTree.moveRight(currentCell, length);
+    }
 
-      if (!spanningTree.reconstruct(searchMap, cellLast.getId()).contains(currentCell.getId())) {
+    // only moves that went somewhere are logged and scored, so a replay of the log agrees
+    if (currentCell != before && MoveLog.code(key) != -1) {
+      moves.append(MoveLog.code(key));
+      if (!this.onSolution(currentCell.id)) {
         wrongMoves++;
       }
+      if (currentCell.equals(cellLast)) {
+        win = true;
+      }
     }
   }
 
@@ -414,11 +780,22 @@ class MazeWorld extends World {
   // EFFECT: changes animate field, changes color of
   // cells in the path, changes color of cell based on search
   public void onTick() {
+    TickEvent event = new TickEvent();
+    event.begin();
+    event.animating = animate;
+    long start = System.nanoTime();
+
+    if (generating) {
+      generating = spanningTree.kruskalSteps(edgesPerTick);
+      if (!generating) {
+        this.finishGeneration();
+      }
+    }
+
     if (animate) {
-      animate = this.spanningTree.search(cellFirst, cellLast, searchWorkList, seenList, searchMap,
-          length, addIndex);
+      animate = this.spanningTree.search(cellLast, searchWorkList, searched, length);
       if (!animate) {
-        this.darkHighLightAll(spanningTree.reconstruct(searchMap, cellLast.getId()));
+        this.darkHighLightAll(searched.pathTo(cellLast.getId()));
       }
 
     }
@@ -429,6 +806,134 @@ class MazeWorld extends World {
 
     makeScene();
 
+    MazeMetrics.INSTANCE.recordTick(System.nanoTime() - start);
+    event.commit();
+  }
+
+  // moves the waiting cells into a new kind of frontier, so the search
+  // can change strategy at any time, including back to an earlier one
+  // EFFECT: searchWorkList is replaced
+  void switchFrontier(Frontier next) {
+    searchWorkList.drainInto(next);
+    searchWorkList = next;
+  }
+
+  // manhattan distance from every cell to the last cell, indexed by id
+  int[] distancesToGoal() {
+    int[] distances = new int[length * length];
+    for (int id = 0; id < distances.length; id++) {
+      distances[id] = (length - 1 - id / length) + (length - 1 - id % length);
+    }
+    return distances;
+  }
+
+  // cheapest path from the first to the last cell, when edge weights are traversal costs
+  ArrayList<Integer> cheapestPath() {
+    DijkstraSolver solver = new DijkstraSolver(spanningTree.getAdjacency());
+    solver.solve(cellFirst.id, cellLast.id);
+    return solver.path(cellLast.id);
+  }
+
+  // the incremental solver for this board, made when generation finishes,
+  // or here if it is asked for before that
+  IncrementalSolver solution() {
+    if (solver == null) {
+      solver = new IncrementalSolver(spanningTree.cellsById, cellFirst.id);
+    }
+    return solver;
+  }
+
+  // is the cell on the current solution from cellFirst to cellLast?
+  // a move onto any other cell is a wrong move, the same rule MoveValidator replays
+  // against the final walls, which only holds while no wall is edited mid-game
+  boolean onSolution(int id) {
+    return this.solution().onPath(cellLast.id, id);
+  }
+
+  // opens or closes one wall at runtime
+  // the path tree from cellFirst is repaired around the edge instead of searching again
+  // EFFECT: the edge flips, the compact adjacency is dropped until it is needed again,
+  // and the game can no longer be submitted
+  void toggleWall(Edge e) {
+    e.setConnected(!e.isConnected());
+    wallsEdited = true;
+    spanningTree.adjacency = null;
+    if (solver != null) {
+      solver.wallChanged(e);
+    }
+  }
+
+  // clicking near the side of a cell toggles the wall on that side
+  // EFFECT: see toggleWall
+  public void onMouseClicked(Posn pos) {
+    if (camera.overview || generating) {
+      return;
+    }
+    int x = pos.x + camera.offsetX();
+    int y = pos.y + camera.offsetY();
+    int col = x / Viewport.CELL_SIZE;
+    int row = y / Viewport.CELL_SIZE;
+    if (x < 0 || y < 0 || col >= length || row >= length) {
+      return;
+    }
+    Cell cell = board.get(row).get(col);
+    int dx = x - cell.pos.x;
+    int dy = y - cell.pos.y;
+    Edge side;
+    if (Math.abs(dx) > Math.abs(dy)) {
+      side = dx > 0 ? cell.right : cell.left;
+    }
+    else {
+      side = dy > 0 ? cell.bottom : cell.top;
+    }
+    if (side != null) {
+      this.toggleWall(side);
+    }
+  }
+
+  // writes the board as a png, the path from the first to the last cell in red if asked
+  // EFFECT: the png is written to out
+  void exportPng(OutputStream out, int cellSize, boolean withSolution) throws IOException {
+    BitSet path = null;
+    if (withSolution) {
+      path = new BitSet(length * length);
+      for (int id : this.solution().pathTo(cellLast.id)) {
+        path.set(id);
+      }
+    }
+    MazeExporter.export(new BoardRows(board), cellSize, path, out);
+  }
+
+  // an immutable snapshot of the current walls, for solving on several threads at once
+  // the board keeps its colors and search state, the snapshot never sees them
+  FrozenMaze freeze() {
+    return new FrozenMaze(spanningTree.getAdjacency(), length, length);
+  }
+
+  // distances from every cell to the nearest of the given cells, in one pass
+  // pass the exits to ask for the nearest exit, or the spawns to ask which spawn is first
+  SourceField fieldFrom(int... ids) {
+    return new SourceField(spanningTree.getAdjacency(), ids);
+  }
+
+  // can this game's move log back up its score?
+  // the log holds moves only, so a game whose walls changed under it cannot be replayed
+  boolean submittable() {
+    return !wallsEdited;
+  }
+
+  // replays this game's move log against the board's walls
+  ReplayResult replayMoves() {
+    if (!this.submittable()) {
+      throw new IllegalStateException(
+          "Walls were edited during the game, the log cannot be replayed");
+    }
+    return new MoveValidator(GridMaze.fromRows(new BoardRows(board), 0)).replay(moves);
+  }
+
+  // difficulty metrics of this maze
+  MazeStats analyze() {
+    return MazeAnalytics.analyze(spanningTree.getAdjacency(), length, cellFirst.id, cellLast.id);
   }
 
   // highlights the solved maze path
@@ -503,8 +1008,6 @@ class ExamplesMaze {
   ArrayList<ArrayList<Cell>> exampleBoard;
   ArrayList<ArrayList<Cell>> exampleBoard2;
 
-  HashMap<Integer, Integer> representatives;
-
   Cell node0;
   Cell node1;
   Cell node2;
@@ -554,7 +1057,6 @@ class ExamplesMaze {
     this.image1 = new WorldScene(100, 100);
     this.image2 = new WorldScene(100, 100);
 
-    this.representatives = new HashMap<Integer, Integer>();
     this.reconstructedList = new ArrayList<Integer>();
 
     ////////////////
@@ -1133,59 +1635,23 @@ class ExamplesMaze {
 
   // test find
   void testFind(Tester t) {
-    init();
-    // test find
-    g.representatives.put(4, 4);
-    g.representatives.put(5, 5);
-    t.checkExpect(workList.get(0), new Edge(node4, node5, 1));
-    t.checkExpect(g.representatives.get(4), 4);
-
-    t.checkExpect(g.find(g.representatives, 4), 4);
-    t.checkExpect(g.find(g.representatives, 5), 5);
-
-    g.union(g.representatives, 4, 5);
-    t.checkExpect(g.find(g.representatives, 5), 4);
+    // roots are found through any chain, which is halved on the way
+    int[] parent = {1, 2, 3, 3};
+    t.checkExpect(UnionFind.find(parent, 0), 3);
+    t.checkExpect(parent[0], 2);
+    t.checkExpect(UnionFind.find(parent, 3), 3);
 
     // test find with kruskal
     init();
+    t.checkExpect(workList.get(0), new Edge(node4, node5, 1));
     g3.workList.sort((e1, e2) -> e1.compareTo(e2));
     g3.kruskal();
 
-    t.checkExpect(g3.find(g3.representatives, 4), 4);
-    t.checkExpect(g3.find(g3.representatives, 5), 4);
-    t.checkExpect(g3.find(g3.representatives, 6), 4);
-    t.checkExpect(g3.find(g3.representatives, 7), 4);
-
-  }
-
-  // test union
-  void testUnion(Tester t) {
-    init();
-
-    g.representatives.put(4, 4);
-    g.representatives.put(5, 5);
-    g.representatives.put(6, 6);
-    t.checkExpect(g.representatives.get(4), 4);
-    t.checkExpect(g.representatives.get(5), 5);
-
-    g.union(g.representatives, 4, 5);
-
-    t.checkExpect(g.representatives.get(4), 4);
-    t.checkExpect(g.representatives.get(5), 4);
-    t.checkExpect(g.representatives.get(6), 6);
-
-    init();
-    g.representatives.put(1, 1);
-    g.representatives.put(2, 2);
-    g.representatives.put(3, 3);
-    t.checkExpect(g.representatives.get(1), 1);
-    t.checkExpect(g.representatives.get(2), 2);
-
-    g.union(g.representatives, 1, 2);
-
-    t.checkExpect(g.representatives.get(1), 1);
-    t.checkExpect(g.representatives.get(2), 1);
-    t.checkExpect(g.representatives.get(3), 3);
+    // kruskal keeps its sets in an int union-find by cell id
+    t.checkExpect(UnionFind.find(g3.sets, 4), 4);
+    t.checkExpect(UnionFind.find(g3.sets, 5), 4);
+    t.checkExpect(UnionFind.find(g3.sets, 6), 4);
+    t.checkExpect(UnionFind.find(g3.sets, 7), 4);
 
   }
 
@@ -1195,9 +1661,6 @@ class ExamplesMaze {
     ArrayList<Edge> gKruskal = new ArrayList<Edge>(Arrays.asList(workList.get(0), workList.get(1)));
     t.checkExpect(g.kruskal(), gKruskal);
 
-    // test mapping?
-    // t.checkExpect(g.representatives, null);
-
     t.checkExpect(workList2.size(), 4);
     workList2.sort((e1, e2) -> e1.compareTo(e2));
     t.checkExpect(g2.kruskal(), new ArrayList<Edge>(Arrays.asList(new Edge(node4, node7, 1),
@@ -1401,8 +1864,8 @@ class ExamplesMaze {
 
     // hasPath(Cell source, Cell destination, ICollection<Cell> list, int length)
 
-    ArrayList<Cell> ws = new ArrayList<Cell>();
-    ws.add(node4);
+    Frontier ws = new LifoFrontier();
+    ws.push(node4.id);
     ArrayList<Cell> seen = new ArrayList<Cell>();
     HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
 
@@ -1422,10 +1885,10 @@ class ExamplesMaze {
 
     t.checkExpect(ws.size(), 1);
     // 2x2 complex
-    t.checkExpect(g3.search(node4, node7, ws, seen, map, 2, ws.size() - 1), true);
-    t.checkExpect(g3.search(node4, node7, ws, seen, map, 2, ws.size() - 1), true);
-    t.checkExpect(g3.search(node4, node7, ws, seen, map, 2, ws.size() - 1), true);
-    t.checkExpect(g3.search(node4, node7, ws, seen, map, 2, ws.size() - 1), false);
+    t.checkExpect(g3.search(node7, ws, seen, map, 2), true);
+    t.checkExpect(g3.search(node7, ws, seen, map, 2), true);
+    t.checkExpect(g3.search(node7, ws, seen, map, 2), true);
+    t.checkExpect(g3.search(node7, ws, seen, map, 2), false);
 
     // t.checkExpect(map, null);
     t.checkExpect(g3.reconstruct(map, node7.id), new ArrayList<Integer>(Arrays.asList(4, 5, 6, 7)));
@@ -1437,25 +1900,25 @@ class ExamplesMaze {
     Cell maze3Cell1 = maze3.board.get(0).get(0);
     Cell maze3CellLast = maze3.board.get(2).get(2);
 
-    ArrayList<Cell> ws = new ArrayList<Cell>();
-    ws.add(maze3Cell1);
+    Frontier ws = new LifoFrontier();
+    ws.push(maze3Cell1.id);
     ArrayList<Cell> seen = new ArrayList<Cell>();
     HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
 
     t.checkExpect(
-        maze3.spanningTree.search(maze3Cell1, maze3CellLast, ws, seen, map, 3, ws.size() - 1),
+        maze3.spanningTree.search(maze3CellLast, ws, seen, map, 3),
         true);
     t.checkExpect(
-        maze3.spanningTree.search(maze3Cell1, maze3CellLast, ws, seen, map, 3, ws.size() - 1),
+        maze3.spanningTree.search(maze3CellLast, ws, seen, map, 3),
         true);
     t.checkExpect(
-        maze3.spanningTree.search(maze3Cell1, maze3CellLast, ws, seen, map, 3, ws.size() - 1),
+        maze3.spanningTree.search(maze3CellLast, ws, seen, map, 3),
         true);
     t.checkExpect(
-        maze3.spanningTree.search(maze3Cell1, maze3CellLast, ws, seen, map, 3, ws.size() - 1),
+        maze3.spanningTree.search(maze3CellLast, ws, seen, map, 3),
         true);
     t.checkExpect(
-        maze3.spanningTree.search(maze3Cell1, maze3CellLast, ws, seen, map, 3, ws.size() - 1),
+        maze3.spanningTree.search(maze3CellLast, ws, seen, map, 3),
         false);
 
     t.checkExpect(maze3.spanningTree.reconstruct(map, maze3CellLast.id),
@@ -1468,8 +1931,8 @@ class ExamplesMaze {
 
     // hasPath(Cell source, Cell destination, ICollection<Cell> list, int length)
 
-    ArrayList<Cell> ws = new ArrayList<Cell>();
-    ws.add(node4);
+    Frontier ws = new LifoFrontier();
+    ws.push(node4.id);
     ArrayList<Cell> seen = new ArrayList<Cell>();
     HashMap<Integer, Integer> map = new HashMap<Integer, Integer>();
 
@@ -1489,10 +1952,10 @@ class ExamplesMaze {
 
     t.checkExpect(ws.size(), 1);
     // 2x2 complex
-    t.checkExpect(g3.search(node4, node7, ws, seen, map, 2, ws.size() - 1), true);
-    t.checkExpect(g3.search(node4, node7, ws, seen, map, 2, ws.size() - 1), true);
-    t.checkExpect(g3.search(node4, node7, ws, seen, map, 2, ws.size() - 1), true);
-    t.checkExpect(g3.search(node4, node7, ws, seen, map, 2, ws.size() - 1), false);
+    t.checkExpect(g3.search(node7, ws, seen, map, 2), true);
+    t.checkExpect(g3.search(node7, ws, seen, map, 2), true);
+    t.checkExpect(g3.search(node7, ws, seen, map, 2), true);
+    t.checkExpect(g3.search(node7, ws, seen, map, 2), false);
 
     // t.checkExpect(map, null);
     t.checkExpect(g3.reconstruct(map, node7.id), new ArrayList<Integer>(Arrays.asList(4, 5, 6, 7)));
@@ -1576,8 +2039,9 @@ class ExamplesMaze {
     // t.checkExpect(maze4.spanningTree.size(), new Graph(new ArrayList<Edge>(),
     // maze4.edgesWorkList));
     t.checkExpect(maze4.searchWorkList.size(), 1);
-    t.checkExpect(maze4.seenList, new ArrayList<Cell>());
-    t.checkExpect(maze4.searchMap, new HashMap<Integer, Integer>());
+    t.checkExpect(maze4.searched.size(), 0);
+    t.checkExpect(maze4.searched.pathTo(maze4.cellLast.id),
+        new ArrayList<Integer>(Arrays.asList(15)));
     t.checkExpect(maze4.animate, false);
     t.checkExpect(maze4.r, new Random());
     t.checkExpect(maze4.length, 4);
@@ -1642,7 +2106,7 @@ class ExamplesMaze {
     t.checkExpect(maze3.edgesAll.size(), 12);
     t.checkExpect(maze3.edgesSpanningTree.size(), 8);
     t.checkExpect(maze3.searchWorkList.size(), 1);
-    t.checkExpect(maze3.seenList, new ArrayList<Cell>());
+    t.checkExpect(maze3.searched.size(), 0);
 
     init();
     maze3.onKeyEvent("b");
@@ -1661,4 +2125,1449 @@ class ExamplesMaze {
 
   }
 
+  // test chunk generation, cross-chunk passages and the chunk cache
+  void testChunkedMaze(Tester t) {
+    ChunkedMaze maze = new ChunkedMaze(42, 9);
+    ChunkedMaze same = new ChunkedMaze(42, 9);
+
+    // same seed and coordinates always give the same chunk
+    t.checkExpect(maze.getChunk(3, -2).rightOpen, same.getChunk(3, -2).rightOpen);
+    t.checkExpect(maze.getChunk(3, -2).downOpen, same.getChunk(3, -2).downOpen);
+
+    // a chunk is a spanning tree of its cells plus two border openings
+    MazeChunk chunk = maze.getChunk(0, 0);
+    int passages = 0;
+    for (int i = 0; i < MazeChunk.SIZE * MazeChunk.SIZE; i++) {
+      if (chunk.rightOpen[i]) {
+        passages++;
+      }
+      if (chunk.downOpen[i]) {
+        passages++;
+      }
+    }
+    t.checkExpect(passages, MazeChunk.SIZE * MazeChunk.SIZE - 1 + 2);
+
+    // every cell of a 3x3 block of chunks is reachable from (0, 0)
+    int side = MazeChunk.SIZE * 3;
+    boolean[] seen = new boolean[side * side];
+    int[] queue = new int[side * side];
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = 0;
+    seen[0] = true;
+    while (head < tail) {
+      int id = queue[head++];
+      int x = id % side;
+      int y = id / side;
+      if (x + 1 < side && !seen[id + 1] && maze.openRight(x, y)) {
+        seen[id + 1] = true;
+        queue[tail++] = id + 1;
+      }
+      if (x > 0 && !seen[id - 1] && maze.openLeft(x, y)) {
+        seen[id - 1] = true;
+        queue[tail++] = id - 1;
+      }
+      if (y + 1 < side && !seen[id + side] && maze.openDown(x, y)) {
+        seen[id + side] = true;
+        queue[tail++] = id + side;
+      }
+      if (y > 0 && !seen[id - side] && maze.openUp(x, y)) {
+        seen[id - side] = true;
+        queue[tail++] = id - side;
+      }
+    }
+    t.checkExpect(tail, side * side);
+
+    // travelling far away never holds more than the cache size
+    for (int x = 0; x < 50 * MazeChunk.SIZE; x += MazeChunk.SIZE) {
+      maze.loadAround(x, -x);
+    }
+    t.checkExpect(maze.loadedChunks() <= 9, true);
+  }
+
+  // test moving through the infinite maze world
+  void testInfiniteMazeWorld(Tester t) {
+    InfiniteMazeWorld world = new InfiniteMazeWorld(7);
+    t.checkExpect(world.maze.loadedChunks(), 9);
+
+    boolean canGoRight = world.maze.openRight(0, 0);
+    world.onKeyEvent("right");
+    t.checkExpect(world.playerX, canGoRight ? 1 : 0);
+    t.checkExpect(world.moves, canGoRight ? 1 : 0);
+
+    world.onKeyEvent("r");
+    t.checkExpect(world.playerX, 0);
+    t.checkExpect(world.maze.seed, 8L);
+  }
+
+  // test the camera window and overview
+  void testViewport(Tester t) {
+    Viewport small = new Viewport(520, 520, 3, 3);
+    small.follow(2, 2);
+    t.checkExpect(small.visibleCols(), 3);
+    t.checkExpect(small.firstCol, 0);
+    t.checkExpect(small.offsetX(), 0);
+
+    Viewport big = new Viewport(520, 520, 100, 100);
+    t.checkExpect(big.visibleCols(), 26);
+    big.follow(50, 50);
+    t.checkExpect(big.firstCol, 37);
+    t.checkExpect(big.offsetY(), 740);
+    big.follow(99, 0);
+    t.checkExpect(big.firstCol, 74);
+    t.checkExpect(big.firstRow, 0);
+    t.checkExpect(big.cellsPerBlock(), 1);
+    t.checkExpect(new Viewport(520, 520, 1000, 1000).cellsPerBlock(), 8);
+
+    // the camera follows the player on a board larger than the scene
+    MazeWorld maze = new MazeWorld(40, new Random(1));
+    maze.currentCell = maze.board.get(39).get(39);
+    maze.makeScene();
+    t.checkExpect(maze.camera.firstCol, 14);
+    t.checkExpect(maze.camera.firstRow, 14);
+
+    maze.onKeyEvent("z");
+    t.checkExpect(maze.camera.overview, true);
+    maze.makeScene();
+    maze.onKeyEvent("z");
+    t.checkExpect(maze.camera.overview, false);
+
+    // overview blocks average every cell they cover, shaded by their walls
+    MazeWorld two = new MazeWorld(2, new Random(1));
+    t.checkExpect(two.blockColor(1, 1, 1), Color.white);
+    t.checkExpect(two.blockColor(0, 0, 2), new Color(221, 221, 221));
+    two.board.get(0).get(0).highlight(Color.black);
+    two.board.get(0).get(1).highlight(Color.black);
+    t.checkExpect(two.blockColor(0, 0, 2), new Color(119, 119, 119));
+  }
+
+  // test the JMX metrics are registered and updated
+  void testMazeMetrics(Tester t) {
+    MazeMetrics metrics = MazeMetrics.INSTANCE;
+    metrics.reset();
+    t.checkExpect(metrics.getGenerations(), 0L);
+
+    MazeWorld maze = new MazeWorld(3, new Random(1));
+    t.checkExpect(metrics.getGenerations(), 1L);
+    t.checkExpect(metrics.getEdgesProcessed(), 12L);
+    t.checkExpect(metrics.getScenes(), 1L);
+    // 9 cells, 4 walls, border, box and text
+    t.checkExpect(metrics.getImagesLastFrame(), 16L);
+
+    maze.onKeyEvent("b");
+    maze.onTick();
+    t.checkExpect(metrics.getKeyPresses(), 1L);
+    t.checkExpect(metrics.getNodesExpanded(), 1L);
+    t.checkExpect(metrics.getFrontierSize() > 0, true);
+
+    try {
+      t.checkExpect(ManagementFactory.getPlatformMBeanServer()
+          .getAttribute(new ObjectName(MazeMetrics.OBJECT_NAME), "Scenes"), 2L);
+    }
+    catch (JMException e) {
+      t.checkExpect(e, null);
+    }
+
+    // the key rate covers the last ten seconds and reading it changes nothing
+    MazeMetrics rate = new MazeMetrics();
+    long second = 1_000_000_000L;
+    for (int i = 0; i < 30; i++) {
+      rate.recordKeyPress(100 * second + i * second / 10);
+    }
+    rate.recordKeyPress(103 * second);
+    t.checkExpect(rate.keyPressesPerSecond(103 * second), 3.1);
+    t.checkExpect(rate.keyPressesPerSecond(103 * second), 3.1);
+    t.checkExpect(rate.keyPressesPerSecond(110 * second), 2.1);
+    t.checkExpect(rate.keyPressesPerSecond(113 * second), 0.0);
+    t.checkExpect(rate.getKeyPresses(), 31L);
+  }
+
+  // test the log bucketed latency histogram
+  void testLatencyHistogram(Tester t) {
+    t.checkExpect(LatencyHistogram.bucket(5), 5);
+    t.checkExpect(LatencyHistogram.bucket(8), 8);
+    t.checkExpect(LatencyHistogram.upperBound(LatencyHistogram.bucket(1000)) >= 1000, true);
+    t.checkExpect(LatencyHistogram.upperBound(LatencyHistogram.bucket(1000)) < 1125, true);
+
+    LatencyHistogram h = new LatencyHistogram();
+    t.checkExpect(h.percentile(0.5), 0L);
+    for (int i = 1; i <= 1000; i++) {
+      h.record(i * 1000L);
+    }
+    h.record(40_000_000L);
+    t.checkExpect(h.total, 1001L);
+    t.checkExpect(h.percentile(0.5) >= 500_000L && h.percentile(0.5) < 563_000L, true);
+    t.checkExpect(h.percentile(0.999) >= 999_000L && h.percentile(0.999) <= 1_125_000L, true);
+    t.checkExpect(h.percentile(1.0), 40_000_000L);
+    t.checkExpect(h.countAbove(MazeMetrics.FRAME_BUDGET_NANOS), 1L);
+
+    h.reset();
+    t.checkExpect(h.total, 0L);
+  }
+
+  // test the flight recorder events and tick histogram are fed by the game loop
+  void testFlightRecorderEvents(Tester t) {
+    MazeMetrics.INSTANCE.reset();
+    Recording recording = new Recording();
+    recording.enable("maze.Generation");
+    recording.enable("maze.Scene");
+    recording.start();
+    MazeWorld maze = new MazeWorld(3, new Random(1));
+    maze.onTick();
+    recording.stop();
+
+    try {
+      Path file = Files.createTempFile("maze", ".jfr");
+      recording.dump(file);
+      int generations = 0;
+      int scenes = 0;
+      for (RecordedEvent e : RecordingFile.readAllEvents(file)) {
+        if (e.getEventType().getName().equals("maze.Generation")) {
+          generations++;
+          t.checkExpect(e.getInt("edges"), 12);
+        }
+        if (e.getEventType().getName().equals("maze.Scene")) {
+          scenes++;
+        }
+      }
+      t.checkExpect(generations, 1);
+      t.checkExpect(scenes, 2);
+      Files.delete(file);
+    }
+    catch (IOException e) {
+      t.checkExpect(e, null);
+    }
+    recording.close();
+
+    t.checkExpect(MazeMetrics.INSTANCE.tickLatency.total, 1L);
+    t.checkExpect(MazeMetrics.INSTANCE.dumpTickLatency().startsWith("count=1 "), true);
+  }
+
+  // test the compressed sparse row adjacency
+  void testMazeAdjacency(Tester t) {
+    init();
+    MazeAdjacency adj = MazeAdjacency.fromEdges(4, new int[] { 0, 1, 1 }, new int[] { 1, 2, 3 },
+        3);
+    t.checkExpect(adj.offsets, new int[] { 0, 1, 4, 5, 6 });
+    t.checkExpect(adj.neighbors, new int[] { 1, 0, 2, 3, 1, 1 });
+    t.checkExpect(adj.degree(1), 3);
+    t.checkExpect(adj.connected(3, 1), true);
+    t.checkExpect(adj.connected(0, 3), false);
+    t.checkExpect(adj.edgeCount(), 3);
+
+    // kruskal exports its tree, neighbors in the same order as getEdges
+    MazeAdjacency tree = maze3.spanningTree.adjacency;
+    t.checkExpect(tree.cellCount(), 9);
+    t.checkExpect(tree.edgeCount(), 8);
+    for (int id = 0; id < 9; id++) {
+      Cell cell = maze3.getCellFromId(id);
+      ArrayList<Edge> edges = cell.getEdges(3);
+      t.checkExpect(tree.degree(id), edges.size());
+      for (int i = 0; i < edges.size(); i++) {
+        t.checkExpect(tree.neighbor(tree.start(id) + i), edges.get(i).getOtherNode(cell).id);
+      }
+    }
+  }
+
+  // test the frontier implementations
+  void testFrontiers(Tester t) {
+    Frontier fifo = new FifoFrontier(4);
+    Frontier lifo = new LifoFrontier(4);
+    for (int i = 0; i < 10; i++) {
+      fifo.push(i);
+      lifo.push(i);
+    }
+    t.checkExpect(fifo.size(), 10);
+    t.checkExpect(fifo.pop(), 0);
+    t.checkExpect(fifo.pop(), 1);
+    fifo.push(10);
+    t.checkExpect(fifo.peek(), 2);
+    t.checkExpect(lifo.pop(), 9);
+    t.checkExpect(lifo.peek(), 8);
+
+    Frontier priority = new PriorityFrontier(new int[] { 5, 1, 3, 1, 0 });
+    priority.push(0);
+    priority.push(1);
+    priority.push(2);
+    t.checkExpect(priority.pop(), 1);
+    priority.push(4);
+    t.checkExpect(priority.pop(), 4);
+    t.checkExpect(priority.pop(), 2);
+    t.checkExpect(priority.pop(), 0);
+    t.checkExpect(priority.isEmpty(), true);
+
+    Frontier random = new RandomFrontier(3);
+    random.push(7);
+    random.push(8);
+    random.push(9);
+    int first = random.peek();
+    t.checkExpect(random.pop(), first);
+    int sum = random.pop() + random.pop();
+    t.checkExpect(first + sum, 24);
+
+    // draining keeps pop order
+    Frontier into = new FifoFrontier();
+    lifo.drainInto(into);
+    t.checkExpect(lifo.isEmpty(), true);
+    t.checkExpect(into.pop(), 8);
+    t.checkExpect(into.size(), 8);
+  }
+
+  // test switching the search strategy mid search
+  void testSwitchFrontier(Tester t) {
+    init();
+    maze3.onKeyEvent("d");
+    t.checkExpect(maze3.searchWorkList instanceof LifoFrontier, true);
+    maze3.onTick();
+    maze3.onKeyEvent("b");
+    t.checkExpect(maze3.searchWorkList instanceof FifoFrontier, true);
+    maze3.onKeyEvent("g");
+    t.checkExpect(maze3.searchWorkList instanceof PriorityFrontier, true);
+    for (int i = 0; i < 20; i++) {
+      maze3.onTick();
+    }
+    t.checkExpect(maze3.animate, false);
+    t.checkExpect(maze3.searched.pathTo(maze3.cellLast.id),
+        new ArrayList<Integer>(Arrays.asList(0, 3, 6, 7, 8)));
+    t.checkExpect(maze3.distancesToGoal()[0], 4);
+  }
+
+  // test the maze analytics
+  void testMazeAnalytics(Tester t) {
+    init();
+    // a 3x3 snake: 0 1 2 / 5 4 3 / 6 7 8
+    MazeAdjacency snake = MazeAdjacency.fromEdges(9, new int[] { 0, 1, 2, 5, 4, 3, 6, 7 },
+        new int[] { 1, 2, 5, 4, 3, 6, 7, 8 }, 8);
+    MazeStats stats = MazeAnalytics.analyze(snake, 3);
+    t.checkExpect(stats.solutionLength, 8);
+    t.checkExpect(stats.diameter, 8);
+    t.checkExpect(stats.deadEnds, 2);
+    t.checkExpect(stats.degreeCounts[2], 7);
+    t.checkExpect(stats.junctions(), 0);
+    t.checkExpect(stats.turns, 4);
+
+    // a plus shape centered on 4, goal 8 unreachable
+    MazeAdjacency plus = MazeAdjacency.fromEdges(9, new int[] { 4, 4, 4, 4 },
+        new int[] { 1, 3, 5, 7 }, 4);
+    stats = MazeAnalytics.analyze(plus, 3, 1, 8);
+    t.checkExpect(stats.solutionLength, -1);
+    t.checkExpect(stats.diameter, 2);
+    t.checkExpect(stats.junctions(), 1);
+    t.checkExpect(stats.deadEnds, 4);
+
+    // path 0, 3, 6, 7, 8 turns once
+    stats = maze3.analyze();
+    t.checkExpect(stats.solutionLength, 4);
+    t.checkExpect(stats.turns, 1);
+    t.checkExpect(stats.cells, 9);
+    // 0, 1, 4, 7, 8 on a width 3 grid goes right, down, down, right
+    t.checkExpect(MazeAnalytics.countTurns(new int[] {-1, 0, -1, -1, 1, -1, -1, 4, 7}, 8, 3), 2);
+
+    List<MazeStats> all = MazeAnalytics.analyzeAll(
+        new ArrayList<MazeAdjacency>(Arrays.asList(snake, maze3.spanningTree.adjacency)), 3);
+    t.checkExpect(all.size(), 2);
+    t.checkExpect(all.get(0).solutionLength, 8);
+    t.checkExpect(all.get(1).solutionLength, 4);
+  }
+
+  // test headless generation and the grid maze bitmaps
+  void testMazeGenerator(Tester t) {
+    GridMaze maze = MazeGenerator.generate(7, 5, 11);
+    t.checkExpect(maze.cellCount(), 35);
+    t.checkExpect(maze.passageCount(), 34);
+    t.checkExpect(MazeGenerator.generate(7, 5, 11).rightOpen, maze.rightOpen);
+    t.checkExpect(maze.toAdjacency().edgeCount(), 34);
+    // nothing opens through the outer border
+    for (int row = 0; row < 5; row++) {
+      t.checkExpect(maze.openRight(row * 7 + 6), false);
+      t.checkExpect(maze.openLeft(row * 7), false);
+    }
+    t.checkExpect(MazeAnalytics.analyze(maze.toAdjacency(), 7).solutionLength >= 10, true);
+
+    GridMaze walls = new GridMaze(2, 2, 0);
+    walls.setRight(0, true);
+    walls.setDown(1, true);
+    t.checkExpect(walls.openLeft(1), true);
+    t.checkExpect(walls.openUp(3), true);
+    walls.setRight(0, false);
+    t.checkExpect(walls.passageCount(), 1);
+
+    // a maze from the generator can be played
+    MazeWorld world = new MazeWorld(MazeGenerator.generate(4, 4, 5));
+    t.checkExpect(world.edgesSpanningTree.size(), 15);
+    t.checkExpect(world.analyze().solutionLength,
+        MazeAnalytics.analyze(MazeGenerator.generate(4, 4, 5).toAdjacency(), 4).solutionLength);
+  }
+
+  // test generating until a maze falls into the difficulty target
+  void testGenerateMatching(Tester t) {
+    DifficultyTarget target = DifficultyTarget.solutionBetween(30, 40);
+    try {
+      GridMaze maze = MazeGenerator.generateMatching(10, target, 1, 10000);
+      MazeStats stats = MazeAnalytics.analyze(maze.toAdjacency(), 10);
+      t.checkExpect(target.accepts(stats), true);
+
+      // impossible target: a 3x3 solution can never be 100 moves
+      MazeGenerator.generateMatching(3, DifficultyTarget.solutionBetween(100, 200), 1, 50);
+      t.checkExpect("no exception", "IllegalStateException");
+    }
+    catch (IllegalStateException e) {
+      t.checkExpect(e.getMessage(), "No maze matched the target in 50 attempts");
+    }
+    catch (InterruptedException e) {
+      t.checkExpect(e, null);
+    }
+  }
+
+  // test the monotone radix heap
+  void testRadixHeap(Tester t) {
+    RadixHeap heap = new RadixHeap();
+    heap.push(5, 50);
+    heap.push(1, 10);
+    heap.push(1000000, 7);
+    heap.push(3, 30);
+    t.checkExpect(heap.pop(), 10);
+    t.checkExpect(heap.lastKey(), 1L);
+    heap.push(2, 20);
+    t.checkExpect(heap.pop(), 20);
+    t.checkExpect(heap.pop(), 30);
+    t.checkExpect(heap.pop(), 50);
+    t.checkExpect(heap.pop(), 7);
+    t.checkExpect(heap.lastKey(), 1000000L);
+    t.checkExpect(heap.isEmpty(), true);
+
+    // many entries in one bucket force it to grow
+    heap.clear();
+    for (int i = 100; i > 0; i--) {
+      heap.push(i, i);
+    }
+    for (int i = 1; i <= 100; i++) {
+      t.checkExpect(heap.pop(), i);
+    }
+  }
+
+  // test dijkstra over weighted passages
+  void testDijkstraSolver(Tester t) {
+    init();
+    // square 0-1-3-2-0 where the short way round is expensive
+    MazeAdjacency square = MazeAdjacency.fromEdges(4, new int[] { 0, 1, 3, 2 },
+        new int[] { 1, 3, 2, 0 }, new int[] { 1, 1, 1, 10 }, 4);
+    DijkstraSolver solver = new DijkstraSolver(square);
+    t.checkExpect(solver.solve(0, 2), 3L);
+    t.checkExpect(solver.path(2), new ArrayList<Integer>(Arrays.asList(0, 1, 3, 2)));
+    t.checkExpect(solver.solve(2, -1), -1L);
+    t.checkExpect(solver.dist[0], 3L);
+
+    // unreachable goal
+    MazeAdjacency split = MazeAdjacency.fromEdges(3, new int[] { 0 }, new int[] { 1 }, 1);
+    solver = new DijkstraSolver(split);
+    t.checkExpect(solver.solve(0, 2), -1L);
+    t.checkExpect(solver.path(2), new ArrayList<Integer>());
+
+    // on a perfect maze the cheapest path is the only path
+    t.checkExpect(maze3.cheapestPath(), new ArrayList<Integer>(Arrays.asList(0, 3, 6, 7, 8)));
+    maze3.onKeyEvent("w");
+    t.checkExpect(maze3.cellLast.color, Color.black);
+  }
+
+  // test braiding and searching a maze with loops
+  void testBraid(Tester t) {
+    MazeWorld braided = new MazeWorld(10, new Random(3), 0.5);
+    t.checkExpect(braided.spanningTree.edgesRejected.size()
+        + braided.spanningTree.edgesBraided.size(), 81);
+    t.checkExpect(braided.spanningTree.edgesBraided.size(), 41);
+    t.checkExpect(braided.spanningTree.adjacency.edgeCount(), 140);
+    t.checkExpect(braided.spanningTree.edgesBraided.get(0).isConnected(), true);
+
+    // fully braided: every wall is open, so bfs finds the straight manhattan path
+    MazeWorld open = new MazeWorld(6, new Random(2), 1);
+    t.checkExpect(open.spanningTree.adjacency.edgeCount(), 60);
+    open.onKeyEvent("b");
+    for (int i = 0; i < 100; i++) {
+      open.onTick();
+    }
+    t.checkExpect(open.animate, false);
+    ArrayList<Integer> path = open.searched.pathTo(open.cellLast.id);
+    t.checkExpect(path.size(), 11);
+    // every cell is expanded at most once
+    t.checkExpect(open.searched.size() <= 36, true);
+
+    // dfs on loops still ends with a real path
+    MazeWorld loops = new MazeWorld(8, new Random(4), 0.3);
+    loops.onKeyEvent("d");
+    for (int i = 0; i < 100; i++) {
+      loops.onTick();
+    }
+    path = loops.searched.pathTo(loops.cellLast.id);
+    t.checkExpect(path.get(0), 0);
+    for (int i = 1; i < path.size(); i++) {
+      t.checkExpect(loops.spanningTree.adjacency.connected(path.get(i - 1), path.get(i)), true);
+    }
+
+    // bfs matches the shortest path found by analytics
+    MazeWorld shortest = new MazeWorld(8, new Random(4), 0.3);
+    shortest.onKeyEvent("b");
+    for (int i = 0; i < 100; i++) {
+      shortest.onTick();
+    }
+    t.checkExpect(shortest.searched.pathTo(63).size() - 1,
+        shortest.analyze().solutionLength);
+  }
+
+  // test repairing the solution while walls are toggled
+  void testIncrementalSolver(Tester t) {
+    MazeWorld maze = new MazeWorld(12, new Random(6));
+    IncrementalSolver solver = maze.solution();
+    t.checkExpect(solver.pathTo(maze.cellLast.id).size() - 1, maze.analyze().solutionLength);
+
+    Random pick = new Random(9);
+    for (int step = 0; step < 300; step++) {
+      maze.toggleWall(maze.edgesAll.get(pick.nextInt(maze.edgesAll.size())));
+      IncrementalSolver fresh = new IncrementalSolver(maze.spanningTree.cellsById, 0);
+      boolean same = true;
+      for (int id = 0; id < 144; id++) {
+        same = same && solver.reached(id) == fresh.reached(id);
+      }
+      t.checkExpect(same, true);
+
+      ArrayList<Integer> path = solver.pathTo(maze.cellLast.id);
+      for (int i = 1; i < path.size(); i++) {
+        t.checkExpect(maze.spanningTree.getAdjacency().connected(path.get(i - 1), path.get(i)),
+            true);
+      }
+    }
+
+    // cutting the goal off and opening it again
+    MazeWorld small = new MazeWorld(3, new Random(1));
+    IncrementalSolver smallSolver = small.solution();
+    small.toggleWall(small.cellLast.left);
+    t.checkExpect(smallSolver.pathTo(8), new ArrayList<Integer>());
+    small.toggleWall(small.cellLast.left);
+    t.checkExpect(smallSolver.pathTo(8), new ArrayList<Integer>(Arrays.asList(0, 3, 6, 7, 8)));
+
+    // clicking the right side of the first cell toggles its right wall
+    boolean before = small.board.get(0).get(0).right.isConnected();
+    small.onMouseClicked(new Posn(18, 10));
+    t.checkExpect(small.board.get(0).get(0).right.isConnected(), !before);
+    small.onMouseClicked(new Posn(10, 2));
+    t.checkExpect(small.board.get(0).get(0).right.isConnected(), !before);
+
+    // the game keeps its solver from the start and counts wrong moves against it,
+    // so walking the repaired path after a wall edit is never wrong
+    MazeWorld loops = new MazeWorld(6, new Random(2), 0.5);
+    t.checkExpect(loops.solver != null, true);
+    ArrayList<Integer> route = loops.solver.pathTo(35);
+    Cell from = loops.getCellFromId(route.get(2));
+    for (Edge e : from.getEdges(6)) {
+      if (e.getOtherNode(from).id == route.get(3)) {
+        loops.toggleWall(e);
+      }
+    }
+    t.checkExpect(loops.solver.pathTo(35).equals(route), false);
+    route = loops.solver.pathTo(35);
+    t.checkExpect(route.size() > 0, true);
+    for (int i = 1; i < route.size(); i++) {
+      int step = route.get(i) - route.get(i - 1);
+      loops.onKeyEvent(step == 1 ? "right" : step == -1 ? "left" : step == 6 ? "down" : "up");
+    }
+    t.checkExpect(loops.currentCell.id, 35);
+    t.checkExpect(loops.wrongMoves, 0);
+    // reaching the goal wins, and moves after the win are ignored
+    t.checkExpect(loops.win, true);
+    loops.onKeyEvent(loops.currentCell.leftConnected() ? "left" : "up");
+    t.checkExpect(loops.currentCell.id, 35);
+    t.checkExpect(loops.wrongMoves, 0);
+  }
+
+  // test that initialize reuses the board instead of rebuilding it
+  void testInitializeInPlace(Tester t) {
+    MazeWorld maze = new MazeWorld(6, new Random(1));
+    Cell corner = maze.board.get(5).get(5);
+    Edge first = maze.edgesAll.get(0);
+    ArrayList<Edge> workList = maze.edgesWorkList;
+    MazeAdjacency adjacency = maze.spanningTree.adjacency;
+    maze.onKeyEvent("b");
+    maze.currentCell = corner;
+    maze.wrongMoves = 3;
+
+    maze.r.setSeed(7);
+    maze.initialize();
+    MazeWorld fresh = new MazeWorld(6, new Random(7));
+    t.checkExpect(maze.board.get(5).get(5) == corner, true);
+    t.checkExpect(maze.edgesAll.get(0) == first, true);
+    t.checkExpect(maze.edgesWorkList == workList, true);
+    t.checkExpect(maze.spanningTree.adjacency == adjacency, true);
+    t.checkExpect(maze.edgesSpanningTree.size(), 35);
+    for (int i = 0; i < maze.edgesAll.size(); i++) {
+      t.checkExpect(maze.edgesAll.get(i).isConnected(), fresh.edgesAll.get(i).isConnected());
+      t.checkExpect(maze.edgesAll.get(i).weight, fresh.edgesAll.get(i).weight);
+    }
+    t.checkExpect(maze.currentCell, maze.cellFirst);
+    t.checkExpect(maze.wrongMoves, 0);
+    t.checkExpect(maze.searchWorkList.size(), 1);
+    t.checkExpect(maze.searched.size(), 0);
+  }
+
+  // test for the pool of mazes generated ahead
+  void testMazePool(Tester t) throws InterruptedException {
+    // the memory cap cuts the depth down to what fits
+    MazePool capped = new MazePool(100, 8, MazePool.bytesPerMaze(100) * 3, 1, 1000);
+    t.checkExpect(capped.capacity, 3);
+    t.checkExpect(new MazePool(100, 8, 1, 1, 1000).capacity, 1);
+
+    MazePool pool = new MazePool(8, 2, MazePool.DEFAULT_MAX_BYTES, 3, 200);
+    t.checkExpect(pool.running(), false);
+    GridMaze first = pool.take();
+    t.checkExpect(first.width, 8);
+    t.checkExpect(first.passageCount(), 63);
+    // the producer may win the race for the very first maze
+    int misses = pool.misses.get();
+    t.checkExpect(misses <= 1, true);
+    t.checkExpect(pool.awaitReady(2, 10_000), true);
+    t.checkExpect(pool.readyCount(), 2);
+    t.checkExpect(pool.take().passageCount(), 63);
+    t.checkExpect(pool.misses.get(), misses);
+
+    // nobody takes a maze, so the producer refills the queue and then stops
+    t.checkExpect(pool.awaitReady(2, 10_000), true);
+    t.checkExpect(pool.awaitStopped(10_000), true);
+    t.checkExpect(pool.readyCount(), 2);
+
+    // reset applies the next maze on the same board
+    MazeWorld maze = new MazeWorld(pool);
+    Cell corner = maze.board.get(7).get(7);
+    Graph graph = maze.spanningTree;
+    maze.initialize();
+    t.checkExpect(maze.board.get(7).get(7) == corner, true);
+    t.checkExpect(maze.spanningTree == graph, true);
+    t.checkExpect(maze.edgesSpanningTree.size(), 63);
+    t.checkExpect(maze.spanningTree.edgesRejected.size(), 112 - 63);
+    t.checkExpect(maze.spanningTree.adjacency.edgeCount(), 63);
+    t.checkExpect(maze.searchWorkList.size(), 1);
+    pool.close();
+    t.checkExpect(pool.running(), false);
+    t.checkExpect(pool.readyCount(), 0);
+  }
+
+  // test for generation from counter based edge keys
+  void testGenerateParallel(Tester t) throws InterruptedException {
+    GridMaze one = MazeGenerator.generateParallel(30, 20, 42, 1);
+    GridMaze four = MazeGenerator.generateParallel(30, 20, 42, 4);
+    GridMaze many = MazeGenerator.generateParallel(30, 20, 42, 64);
+    t.checkExpect(one.passageCount(), 599);
+    t.checkExpect(Arrays.equals(one.rightOpen, four.rightOpen), true);
+    t.checkExpect(Arrays.equals(one.downOpen, four.downOpen), true);
+    t.checkExpect(Arrays.equals(one.rightOpen, many.rightOpen), true);
+    t.checkExpect(Arrays.equals(one.downOpen, many.downOpen), true);
+    // the single thread entry point makes the same maze from the same seed
+    GridMaze serial = MazeGenerator.generate(30, 20, 42);
+    t.checkExpect(Arrays.equals(one.rightOpen, serial.rightOpen), true);
+    t.checkExpect(Arrays.equals(one.downOpen, serial.downOpen), true);
+    long[] keys = new long[2 * 600];
+    int count = MazeGenerator.edgeKeys(keys, 30, 600, 0, 20, 42);
+    long[] sorted = Arrays.copyOf(keys, count);
+    Arrays.sort(sorted);
+    MazeGenerator.sortByWeight(keys, count);
+    t.checkExpect(Arrays.equals(Arrays.copyOf(keys, count), sorted), true);
+    t.checkExpect(MazeAnalytics.analyze(one.toAdjacency(), 30).solutionLength >= 0, true);
+
+    GridMaze other = MazeGenerator.generateParallel(30, 20, 43, 4);
+    t.checkExpect(Arrays.equals(one.rightOpen, other.rightOpen)
+        && Arrays.equals(one.downOpen, other.downOpen), false);
+
+    // keys depend on the edge index only, and never tie
+    t.checkExpect(MazeGenerator.edgeKey(42, 7), MazeGenerator.edgeKey(42, 7));
+    t.checkExpect((int) MazeGenerator.edgeKey(42, 7), 7);
+    t.checkExpect(MazeGenerator.edgeKey(42, 7) == MazeGenerator.edgeKey(42, 8), false);
+    // the shared mixer is plain splitmix64, whose first output from 0 is well known
+    t.checkExpect(SplitMix.next(0), 0xE220A8397B1DCDAFL);
+  }
+
+  // test for the shared image cache
+  void testImageCache(Tester t) {
+    WorldImage wall = ImageCache.solid(1, 20, Color.blue);
+    t.checkExpect(ImageCache.solid(1, 20, Color.blue) == wall, true);
+    t.checkExpect(wall, new RectangleImage(1, 20, OutlineMode.SOLID, Color.blue));
+    t.checkExpect(ImageCache.solid(20, 1, Color.blue) == wall, false);
+    t.checkExpect(ImageCache.solid(1, 20, Color.red) == wall, false);
+    t.checkExpect(ImageCache.outline(1, 20, Color.blue),
+        new RectangleImage(1, 20, OutlineMode.OUTLINE, Color.blue));
+    t.checkExpect(ImageCache.solid(1, 20, new Color(0, 0, 255)) == wall, true);
+
+    // cells of one color share an image, walls share theirs
+    Cell a = new Cell(0, 10, 10);
+    Cell b = new Cell(1, 30, 10);
+    t.checkExpect(a.drawCell() == b.drawCell(), true);
+    b.highlight(Color.pink);
+    t.checkExpect(a.drawCell() == b.drawCell(), false);
+    t.checkExpect(b.drawCell(), new RectangleImage(20, 20, OutlineMode.SOLID, Color.pink));
+    Edge e = new Edge(a, b, 5);
+    t.checkExpect(e.drawEdgeVertical() == wall, true);
+
+    // the table grows and keeps every image
+    int before = ImageCache.size();
+    for (int i = 0; i < 300; i++) {
+      ImageCache.solid(i, 3, Color.green);
+    }
+    t.checkExpect(ImageCache.size() >= before + 300 - 1, true);
+    t.checkExpect(ImageCache.solid(1, 20, Color.blue) == wall, true);
+    t.checkExpect(ImageCache.solid(150, 3, Color.green) == ImageCache.solid(150, 3, Color.green),
+        true);
+
+    // the hud text is only rebuilt when the wrong move count changes
+    MazeWorld maze = new MazeWorld(3, new Random(1));
+    maze.makeScene();
+    WorldImage moves = maze.movesImage;
+    maze.makeScene();
+    t.checkExpect(maze.movesImage == moves, true);
+    maze.wrongMoves++;
+    maze.makeScene();
+    t.checkExpect(maze.movesImage == moves, false);
+    t.checkExpect(maze.movesImage, new TextImage("Wrong moves: 1", 20, Color.black));
+  }
+
+  // test for the raster renderer
+  void testRasterRenderer(Tester t) {
+    MazeWorld maze = new MazeWorld(3, new Random(1));
+    RasterRenderer raster = new RasterRenderer(3, 4);
+    maze.board.get(1).get(1).highlight(Color.pink);
+    raster.render(maze.board);
+    t.checkExpect(raster.width, 12);
+    t.checkExpect(raster.pixels.length, 144);
+    t.checkExpect(raster.pixel(0, 0), Color.black.getRGB());
+    t.checkExpect(raster.pixel(11, 5), Color.black.getRGB());
+    t.checkExpect(raster.pixel(5, 5), Color.pink.getRGB());
+    t.checkExpect(raster.pixel(6, 6), Color.pink.getRGB());
+    t.checkExpect(raster.pixel(1, 9), Color.white.getRGB());
+    t.checkExpect(raster.image.getRGB(5, 5), Color.pink.getRGB());
+
+    // every cell's right and bottom pixels show its walls
+    for (int row = 0; row < 3; row++) {
+      for (int col = 0; col < 3; col++) {
+        Cell cell = maze.board.get(row).get(col);
+        if (cell.right != null) {
+          t.checkExpect(raster.pixel(col * 4 + 3, row * 4 + 1) == RasterRenderer.WALL,
+              !cell.right.isConnected());
+        }
+        if (cell.bottom != null) {
+          t.checkExpect(raster.pixel(col * 4 + 1, row * 4 + 3) == RasterRenderer.WALL,
+              !cell.bottom.isConnected());
+        }
+      }
+    }
+
+    // a wall edited at runtime shows up on the next render
+    Edge e = maze.board.get(0).get(0).right;
+    maze.toggleWall(e);
+    raster.render(maze.board);
+    t.checkExpect(raster.pixel(3, 1) == RasterRenderer.WALL, !e.isConnected());
+    t.checkExpect(RasterRenderer.fit(1000, 900), 2);
+    t.checkExpect(RasterRenderer.fit(10, 500), 50);
+
+    // the view counts its frames apart from makeScene's
+    RasterMazeView view = new RasterMazeView(maze, 4, 0.1);
+    long frames = MazeMetrics.INSTANCE.getRasterFrames();
+    long scenes = MazeMetrics.INSTANCE.getScenes();
+    BufferedImage screen = new BufferedImage(12, 42, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = screen.createGraphics();
+    view.paintComponent(g);
+    g.dispose();
+    t.checkExpect(MazeMetrics.INSTANCE.getRasterFrames(), frames + 1);
+    t.checkExpect(MazeMetrics.INSTANCE.getScenes(), scenes);
+    t.checkExpect(MazeMetrics.INSTANCE.getLastRasterNanos() > 0, true);
+    t.checkExpect(screen.getRGB(5, 5), Color.pink.getRGB());
+
+    // a board larger than its window scrolls to keep the player in view
+    MazeWorld large = new MazeWorld(50, new Random(1));
+    RasterMazeView bigView = new RasterMazeView(large, 4, 0.1);
+    JScrollPane scroll = new JScrollPane(bigView);
+    scroll.setSize(100, 100);
+    scroll.doLayout();
+    t.checkExpect(scroll.getViewport().getViewPosition().x, 0);
+    large.currentCell = large.cellLast;
+    bigView.followPlayer();
+    Point corner = scroll.getViewport().getViewPosition();
+    t.checkExpect(corner.x > 100 && corner.y > 100, true);
+  }
+
+  // test for streaming png export
+  void testMazeExporter(Tester t) throws IOException {
+    // eller's rows make a perfect maze
+    EllerMaze eller = new EllerMaze(30, 20, 5);
+    GridMaze grid = new GridMaze(30, 20, 5);
+    boolean[] right = new boolean[30];
+    boolean[] down = new boolean[30];
+    for (int row = 0; row < 20; row++) {
+      eller.nextRow(right, down);
+      for (int col = 0; col < 30; col++) {
+        grid.setRight(row * 30 + col, right[col]);
+        grid.setDown(row * 30 + col, down[col]);
+      }
+    }
+    t.checkExpect(grid.passageCount(), 599);
+    t.checkExpect(MazeAnalytics.analyze(grid.toAdjacency(), 30).solutionLength >= 29 + 19, true);
+
+    // the png has the game's layout, band by band
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BitSet path = MazeExporter.solution(grid);
+    MazeExporter.export(new GridMazeRows(grid), 4, path, 3, bytes);
+    BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes.toByteArray()));
+    t.checkExpect(image.getWidth(), 120);
+    t.checkExpect(image.getHeight(), 80);
+    t.checkExpect(image.getRGB(0, 40) & 0xffffff, 0x000000);
+    t.checkExpect(image.getRGB(119, 79) & 0xffffff, 0x000000);
+    t.checkExpect(image.getRGB(1, 1) & 0xffffff, 0xff0000);
+    t.checkExpect(image.getRGB(117, 77) & 0xffffff, 0xff0000);
+    for (int id = 0; id < 600; id++) {
+      int x = (id % 30) * 4;
+      int y = (id / 30) * 4;
+      t.checkExpect((image.getRGB(x + 1, y + 1) & 0xffffff) == 0xff0000, path.get(id));
+      if (id % 30 != 29) {
+        t.checkExpect((image.getRGB(x + 3, y + 1) & 0xffffff) == 0x0000ff, !grid.openRight(id));
+      }
+      if (id / 30 != 19) {
+        t.checkExpect((image.getRGB(x + 1, y + 3) & 0xffffff) == 0x0000ff, !grid.openDown(id));
+      }
+    }
+
+    // a game board exports the same way
+    MazeWorld maze = new MazeWorld(5, new Random(1));
+    bytes = new ByteArrayOutputStream();
+    maze.exportPng(bytes, 2, true);
+    image = ImageIO.read(new ByteArrayInputStream(bytes.toByteArray()));
+    t.checkExpect(image.getWidth(), 10);
+    t.checkExpect(image.getRGB(8, 8) & 0xffffff, 0xff0000);
+
+    // a path given row by row paints the same, with no whole-maze bitmap behind it
+    bytes = new ByteArrayOutputStream();
+    MazeExporter.export(new GridMazeRows(grid), 4, onPath -> Arrays.fill(onPath, true), 3,
+        bytes);
+    image = ImageIO.read(new ByteArrayInputStream(bytes.toByteArray()));
+    t.checkExpect(image.getRGB(1, 1) & 0xffffff, 0xff0000);
+    t.checkExpect(image.getRGB(57, 41) & 0xffffff, 0xff0000);
+
+    // a path a BitSet cannot hold, or a band an array cannot hold, is refused up front
+    String refused = "";
+    try {
+      MazeExporter.export(new EllerMaze(50_000, 50_000, 1), 2, new BitSet(), bytes);
+    }
+    catch (IllegalArgumentException e) {
+      refused = e.getMessage();
+    }
+    t.checkExpect(refused, "A BitSet cannot hold the path of a 50000x50000 maze");
+    refused = "";
+    try {
+      MazeExporter.export(new EllerMaze(40_000, 100, 1), 100, (PathRows) null, 16, bytes);
+    }
+    catch (IllegalArgumentException e) {
+      refused = e.getMessage();
+    }
+    t.checkExpect(refused, "A band of 16 rows is too large, use fewer");
+  }
+
+  // test for the multi-session server
+  void testSessionManager(Tester t) throws IOException, InterruptedException {
+    SessionManager manager = new SessionManager();
+    int a = manager.open(6, 9);
+    int b = manager.open(6, 9);
+    int c = manager.open(6, 10);
+    t.checkExpect(manager.get(a).maze == manager.get(b).maze, true);
+    t.checkExpect(manager.get(a).maze == manager.get(c).maze, false);
+    t.checkExpect(manager.mazes.size(), 2);
+    t.checkExpect(manager.mazes.get(new SessionManager.MazeKey(6, 9)).sessions, 2);
+
+    // walking the solution wins without a wrong move
+    SharedMaze maze = manager.get(a).maze;
+    MazeAdjacency adj = maze.maze.toAdjacency();
+    int[] dist = new int[36];
+    int[] parent = new int[36];
+    MazeAnalytics.bfs(adj, 35, dist, parent, new int[36]);
+    GameSession session = manager.get(a);
+    while (session.current != 35) {
+      int next = parent[session.current];
+      String direction = next == session.current + 1 ? "right"
+          : next == session.current - 1 ? "left"
+          : next > session.current ? "down" : "up";
+      session.move(direction);
+      t.checkExpect(session.current, next);
+    }
+    t.checkExpect(session.win, true);
+    t.checkExpect(session.wrongMoves, 0);
+    t.checkExpect(manager.get(b).current, 0);
+
+    // both search orders visit every cell once, starting at the first
+    t.checkExpect(maze.bfsOrder[0], 0);
+    t.checkExpect(maze.dfsOrder[0], 0);
+    BitSet seen = new BitSet();
+    for (int id : maze.dfsOrder) {
+      seen.set(id);
+    }
+    t.checkExpect(seen.cardinality(), 36);
+
+    // the protocol
+    t.checkExpect(manager.handle("SEARCH " + b + " bfs"), "OK");
+    t.checkExpect(manager.handle("TICK " + b + " 2"), "OK 2 false");
+    int goalAt = 0;
+    while (maze.bfsOrder[goalAt] != 35) {
+      goalAt++;
+    }
+    t.checkExpect(manager.handle("TICK " + b + " 100"), "OK " + (goalAt + 1) + " true");
+    t.checkExpect(manager.handle("STATE " + b), "OK 0 0 false");
+    t.checkExpect(manager.handle("MOVE " + b + " up"), "OK 0 0 false");
+    t.checkExpect(manager.handle("STATE 999"), "ERR No session 999");
+    t.checkExpect(manager.handle("MOVE " + b), "ERR Missing argument");
+    t.checkExpect(manager.handle("NEW 0 1"), "ERR Width must be between 1 and 2000");
+    t.checkExpect(manager.handle("JUMP " + b), "ERR Unknown command JUMP");
+
+    // the maze is dropped with its last session
+    manager.close(a);
+    t.checkExpect(manager.mazes.size(), 2);
+    t.checkExpect(manager.handle("CLOSE " + b), "OK");
+    t.checkExpect(manager.mazes.size(), 1);
+
+    // a connection's sessions are tracked until it closes them or ends
+    Set<Integer> owned = new HashSet<Integer>();
+    t.checkExpect(manager.handle("NEW 5 7", owned), "OK " + (c + 1));
+    t.checkExpect(manager.handle("NEW 5 7", owned), "OK " + (c + 2));
+    t.checkExpect(manager.handle("CLOSE " + (c + 1), owned), "OK");
+    t.checkExpect(owned.contains(c + 2), true);
+    t.checkExpect(owned.size(), 1);
+    manager.closeAll(owned);
+    t.checkExpect(manager.sessions.containsKey(c + 2), false);
+    t.checkExpect(manager.mazes.size(), 1);
+    t.checkExpect(owned.isEmpty(), true);
+
+    // over a socket, pipelined
+    MazeServer server = new MazeServer(manager, 0);
+    server.start();
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.port());
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()))) {
+      out.print("NEW 4 1\nSTATE " + (c + 3) + "\n");
+      out.flush();
+      t.checkExpect(in.readLine(), "OK " + (c + 3));
+      t.checkExpect(in.readLine(), "OK 0 0 false");
+      t.checkExpect(manager.mazes.size(), 2);
+    }
+    // hanging up closes the session the connection left open
+    server.stop();
+    t.checkExpect(server.connections.awaitTermination(10, TimeUnit.SECONDS), true);
+    t.checkExpect(manager.sessions.containsKey(c + 3), false);
+    t.checkExpect(manager.mazes.size(), 1);
+  }
+
+  // test for the move log and its replay
+  void testMoveLog(Tester t) throws IOException {
+    MoveLog log = new MoveLog();
+    for (int i = 0; i < 300; i++) {
+      log.append(i % 4);
+    }
+    t.checkExpect(log.size(), 300);
+    t.checkExpect(log.get(0), MoveLog.LEFT);
+    t.checkExpect(log.get(31), MoveLog.DOWN);
+    t.checkExpect(log.get(33), MoveLog.RIGHT);
+    t.checkExpect(log.get(299), MoveLog.DOWN);
+    t.checkExpect(MoveLog.code("up"), MoveLog.UP);
+    t.checkExpect(MoveLog.code("b"), -1);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    log.writeTo(new DataOutputStream(bytes));
+    t.checkExpect(bytes.size(), 4 + 10 * 8);
+    MoveLog copy = MoveLog.readFrom(
+        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    t.checkExpect(copy.size(), 300);
+    t.checkExpect(copy.get(299), MoveLog.DOWN);
+
+    // a forged count is refused, or runs out of input, without allocating for it
+    ByteArrayOutputStream huge = new ByteArrayOutputStream();
+    new DataOutputStream(huge).writeInt(Integer.MAX_VALUE);
+    String refused = "";
+    try {
+      MoveLog.readFrom(new DataInputStream(new ByteArrayInputStream(huge.toByteArray())));
+    }
+    catch (IOException e) {
+      refused = e.getMessage();
+    }
+    t.checkExpect(refused, "Move count out of range: " + Integer.MAX_VALUE);
+    ByteArrayOutputStream truncated = new ByteArrayOutputStream();
+    DataOutputStream truncatedOut = new DataOutputStream(truncated);
+    truncatedOut.writeInt(MoveLog.MAX_MOVES);
+    truncatedOut.writeLong(0);
+    boolean ranOut = false;
+    try {
+      MoveLog.readFrom(new DataInputStream(new ByteArrayInputStream(truncated.toByteArray())));
+    }
+    catch (EOFException e) {
+      ranOut = true;
+    }
+    t.checkExpect(ranOut, true);
+
+    // a corpus maze header is held to the same bounds
+    ByteArrayOutputStream forgedMaze = new ByteArrayOutputStream();
+    DataOutputStream forgedOut = new DataOutputStream(forgedMaze);
+    forgedOut.writeInt(46_340);
+    forgedOut.writeInt(46_340);
+    forgedOut.writeLong(1);
+    refused = "";
+    try {
+      GridMaze.readFrom(new DataInputStream(new ByteArrayInputStream(forgedMaze.toByteArray())));
+    }
+    catch (IOException e) {
+      refused = e.getMessage();
+    }
+    t.checkExpect(refused, "Bad maze size 46340x46340");
+    ByteArrayOutputStream cutMaze = new ByteArrayOutputStream();
+    DataOutputStream cutOut = new DataOutputStream(cutMaze);
+    cutOut.writeInt(8192);
+    cutOut.writeInt(8192);
+    cutOut.writeLong(1);
+    cutOut.writeLong(0);
+    ranOut = false;
+    try {
+      GridMaze.readFrom(new DataInputStream(new ByteArrayInputStream(cutMaze.toByteArray())));
+    }
+    catch (EOFException e) {
+      ranOut = true;
+    }
+    t.checkExpect(ranOut, true);
+    log.clear();
+    t.checkExpect(log.size(), 0);
+    log.append(MoveLog.UP);
+    t.checkExpect(log.get(0), MoveLog.UP);
+
+    // a session's own log backs up its score
+    SessionManager manager = new SessionManager();
+    GameSession session = manager.get(manager.open(8, 3));
+    Random random = new Random(4);
+    String[] keys = {"left", "right", "up", "down"};
+    for (int i = 0; i < 2000 && !session.win; i++) {
+      session.move(keys[random.nextInt(4)]);
+    }
+    MoveValidator validator = new MoveValidator(session.maze.maze);
+    ReplayResult result = validator.replay(session.log);
+    t.checkExpect(result.legal, true);
+    t.checkExpect(result.matches(session.wrongMoves, session.win), true);
+    t.checkExpect(result.matches(session.wrongMoves - 1, session.win), false);
+
+    // a forged move through a wall is caught where it happens
+    MoveLog forged = new MoveLog();
+    int current = 0;
+    while (session.maze.maze.openRight(current)) {
+      forged.append(MoveLog.RIGHT);
+      current++;
+    }
+    forged.append(MoveLog.RIGHT);
+    ReplayResult caught = validator.replay(forged);
+    t.checkExpect(caught.legal, false);
+    t.checkExpect(caught.firstIllegal, forged.size() - 1);
+    t.checkExpect(caught.reachedGoal, false);
+    t.checkExpect(validator.replayAll(Arrays.asList(session.log, forged)).get(1).firstIllegal,
+        forged.size() - 1);
+
+    // the game logs arrow moves that went somewhere, and forgets them on reset
+    MazeWorld maze = new MazeWorld(4, new Random(1));
+    for (String key : keys) {
+      maze.onKeyEvent(key);
+      maze.onKeyEvent(key);
+    }
+    maze.onKeyEvent("b");
+    t.checkExpect(maze.moves.size() > 0, true);
+    t.checkExpect(maze.replayMoves().legal, true);
+    t.checkExpect(maze.replayMoves().matches(maze.wrongMoves, maze.win), true);
+    maze.onKeyEvent("r");
+    t.checkExpect(maze.moves.size(), 0);
+
+    // honest play all the way to the goal backs up its own score
+    for (int i = 0; i < 5000 && !maze.win; i++) {
+      maze.onKeyEvent(keys[random.nextInt(4)]);
+    }
+    t.checkExpect(maze.win, true);
+    t.checkExpect(maze.wrongMoves > 0, true);
+    t.checkExpect(maze.replayMoves().matches(maze.wrongMoves, maze.win), true);
+
+    // moves after the win are ignored by the game, the session and the replay alike
+    int logged = maze.moves.size();
+    for (String key : keys) {
+      maze.onKeyEvent(key);
+    }
+    t.checkExpect(maze.moves.size(), logged);
+    t.checkExpect(maze.currentCell, maze.cellLast);
+    t.checkExpect(session.win, true);
+    MoveLog past = new MoveLog();
+    for (int i = 0; i < session.log.size(); i++) {
+      past.append(session.log.get(i));
+    }
+    past.append(MoveLog.UP);
+    past.append(MoveLog.UP);
+    t.checkExpect(validator.replay(past).matches(session.wrongMoves, true), true);
+
+    // a game whose walls were edited cannot be backed up by its moves alone
+    maze.onKeyEvent("r");
+    t.checkExpect(maze.submittable(), true);
+    maze.toggleWall(maze.cellFirst.right);
+    t.checkExpect(maze.submittable(), false);
+    refused = "";
+    try {
+      maze.replayMoves();
+    }
+    catch (IllegalStateException e) {
+      refused = e.getMessage();
+    }
+    t.checkExpect(refused, "Walls were edited during the game, the log cannot be replayed");
+    maze.onKeyEvent("r");
+    t.checkExpect(maze.submittable(), true);
+  }
+
+  // test for hierarchical pathfinding
+  void testHierarchicalSolver(Tester t) {
+    GridMaze maze = MazeGenerator.generate(45, 37, 11);
+    // extra passages make loops, so the shortest route is not the only one
+    Random random = new Random(2);
+    for (int i = 0; i < 200; i++) {
+      int id = random.nextInt(45 * 36);
+      if (id % 45 != 44) {
+        maze.setRight(id, true);
+      }
+      maze.setDown(id, true);
+    }
+    HierarchicalSolver solver = new HierarchicalSolver(maze, 8);
+    t.checkExpect(solver.portalCount() > 0, true);
+    MazeAdjacency adj = maze.toAdjacency();
+    int n = maze.cellCount();
+    int[] dist = new int[n];
+    int[] parent = new int[n];
+    int[] queue = new int[n];
+    for (int k = 0; k < 40; k++) {
+      int start = random.nextInt(n);
+      int goal = k % 5 == 0 ? start + 1 : random.nextInt(n);
+      goal = Math.min(goal, n - 1);
+      MazeAnalytics.bfs(adj, start, dist, parent, queue);
+      t.checkExpect(solver.distance(start, goal), (long) dist[goal]);
+      ArrayList<Integer> path = solver.path(start, goal);
+      t.checkExpect(path.size(), dist[goal] + 1);
+      t.checkExpect(path.get(0), start);
+      t.checkExpect(path.get(path.size() - 1), goal);
+      boolean walkable = true;
+      for (int i = 1; i < path.size(); i++) {
+        walkable &= adj.connected(path.get(i - 1), path.get(i));
+      }
+      t.checkExpect(walkable, true);
+    }
+    t.checkExpect(solver.distance(5, 5), 0L);
+
+    // a walled off cell cannot be reached
+    GridMaze split = new GridMaze(4, 4, 0);
+    split.setRight(0, true);
+    HierarchicalSolver none = new HierarchicalSolver(split, 2);
+    t.checkExpect(none.distance(0, 15), -1L);
+    t.checkExpect(none.path(0, 15).size(), 0);
+    t.checkExpect(none.distance(1, 0), 1L);
+  }
+
+  // test for multi-source distances
+  void testSourceField(Tester t) {
+    MazeWorld maze = new MazeWorld(12, new Random(3), 0.2);
+    int[] exits = {143, 11, 132, 70};
+    SourceField field = maze.fieldFrom(exits);
+    MazeAdjacency adj = maze.spanningTree.getAdjacency();
+    int[][] single = new int[exits.length][144];
+    for (int s = 0; s < exits.length; s++) {
+      MazeAnalytics.bfs(adj, exits[s], single[s], new int[144], new int[144]);
+    }
+    boolean nearest = true;
+    boolean steps = true;
+    for (int id = 0; id < 144; id++) {
+      int best = Integer.MAX_VALUE;
+      for (int s = 0; s < exits.length; s++) {
+        best = Math.min(best, single[s][id]);
+      }
+      nearest &= field.distance(id) == best;
+      nearest &= single[field.sourceIndex(id)][id] == best;
+      nearest &= field.nearest(id) == exits[field.sourceIndex(id)];
+      if (field.distance(id) > 0) {
+        steps &= adj.connected(id, field.nextStep(id));
+        steps &= field.distance(field.nextStep(id)) == field.distance(id) - 1;
+      }
+    }
+    t.checkExpect(nearest, true);
+    t.checkExpect(steps, true);
+    t.checkExpect(field.nearest(143), 143);
+    t.checkExpect(field.nextStep(143), -1);
+    int[] territory = field.territory();
+    t.checkExpect(territory[0] + territory[1] + territory[2] + territory[3], 144);
+
+    // a spawn listed twice keeps its first label, unreachable cells have none
+    GridMaze split = new GridMaze(3, 1, 0);
+    split.setRight(0, true);
+    SourceField spawns = new SourceField(split.toAdjacency(), new int[] {0, 0});
+    t.checkExpect(spawns.sourceIndex(1), 0);
+    t.checkExpect(spawns.territory()[1], 0);
+    t.checkExpect(spawns.nearest(2), -1);
+    t.checkExpect(spawns.distance(2), -1);
+  }
+
+
+  // tests neighbor tables and that kruskal and the solvers run on every topology
+  void testTopology(Tester t) {
+    Topology[] grids = {new SquareTopology(5, 4), new TorusTopology(5, 4),
+        new HexTopology(5, 4), new LayeredTopology(3, 3, 3), new TorusTopology(2, 1)};
+    boolean symmetric = true;
+    boolean trees = true;
+    boolean graphs = true;
+    for (Topology grid : grids) {
+      int n = grid.cellCount();
+      for (int id = 0; id < n; id++) {
+        for (int slot = 0; slot < grid.degree; slot++) {
+          int other = grid.neighbor(id, slot);
+          if (other != -1) {
+            boolean back = false;
+            for (int s = 0; s < grid.degree; s++) {
+              back |= grid.neighbor(other, s) == id;
+            }
+            symmetric &= back;
+          }
+        }
+      }
+      MazeAdjacency adj = grid.toAdjacency(grid.generate(7));
+      int[] dist = new int[n];
+      MazeAnalytics.bfs(adj, 0, dist, new int[n], new int[n]);
+      trees &= adj.edgeCount() == n - 1;
+      for (int id = 0; id < n; id++) {
+        trees &= dist[id] >= 0;
+      }
+      trees &= new DijkstraSolver(adj).solve(0, n - 1) == dist[n - 1];
+
+      Graph graph = grid.toGraph(new Random(7));
+      graphs &= graph.kruskal().size() == n - 1;
+      MazeAdjacency tree = graph.getAdjacency();
+      MazeAnalytics.bfs(tree, 0, dist, new int[n], new int[n]);
+      for (int id = 0; id < n; id++) {
+        graphs &= dist[id] >= 0;
+      }
+    }
+    t.checkExpect(symmetric, true);
+    t.checkExpect(trees, true);
+    t.checkExpect(graphs, true);
+    t.checkExpect(grids[0].edgeCount(), 31);
+    t.checkExpect(grids[1].edgeCount(), 40);
+    t.checkExpect(grids[3].edgeCount(), 54);
+    t.checkExpect(grids[4].edgeCount(), 1);
+    t.checkExpect(grids[1].neighbor(0, 0), 4);
+    t.checkExpect(grids[1].neighbor(0, 2), 15);
+    // row 1 is pushed right, so cell 5 touches 0 and 1 above it, cell 1 touches 5 and 6 below it
+    t.checkExpect(grids[2].neighbor(5, 2), 0);
+    t.checkExpect(grids[2].neighbor(5, 3), 1);
+    t.checkExpect(grids[2].neighbor(1, 4), 5);
+    t.checkExpect(grids[2].neighbor(1, 5), 6);
+    t.checkExpect(grids[2].neighbor(0, 2), -1);
+    t.checkExpect(grids[3].neighbor(4, 5), 13);
+    t.checkExpect(grids[3].neighbor(4, 4), -1);
+  }
+
+
+  // tests that a frozen maze answers the same from several threads and ignores later edits
+  void testFrozenMaze(Tester t) throws InterruptedException {
+    MazeWorld maze = new MazeWorld(20, new Random(11), 0.1);
+    FrozenMaze frozen = maze.freeze();
+    MazeAdjacency before = maze.spanningTree.getAdjacency();
+    int n = 400;
+    int[] expected = new int[n];
+    int[] dist = new int[n];
+    MazeAnalytics.bfs(before, n - 1, dist, new int[n], new int[n]);
+    System.arraycopy(dist, 0, expected, 0, n);
+
+    int[] found = new int[n];
+    boolean[] pathsOk = new boolean[4];
+    Thread[] threads = new Thread[4];
+    for (int k = 0; k < 4; k++) {
+      int first = k;
+      threads[k] = new Thread(() -> {
+        SearchContext ctx = frozen.newContext();
+        boolean ok = true;
+        for (int id = first; id < n; id += 4) {
+          found[id] = frozen.distance(id, n - 1, ctx);
+          int[] path = frozen.path(id, n - 1, ctx);
+          ok &= path.length == found[id] + 1 && path[0] == id && path[path.length - 1] == n - 1;
+          for (int i = 1; i < path.length; i++) {
+            ok &= frozen.connected(path[i - 1], path[i]);
+          }
+        }
+        pathsOk[first] = ok;
+      });
+      threads[k].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    t.checkExpect(Arrays.equals(found, expected), true);
+    t.checkExpect(pathsOk[0] && pathsOk[1] && pathsOk[2] && pathsOk[3], true);
+
+    // a depth first search with no goal takes out every cell once
+    SearchContext ctx = frozen.newContext();
+    t.checkExpect(frozen.search(0, -1, true, ctx), n);
+    t.checkExpect(frozen.search(0, n - 1, false, ctx), ctx.taken);
+    t.checkExpect(ctx.order[ctx.taken - 1], n - 1);
+
+    // new walls on the board do not reach the snapshot
+    int edges = frozen.edgeCount();
+    int[] path = frozen.path(0, n - 1, ctx);
+    maze.initialize();
+    t.checkExpect(frozen.edgeCount(), edges);
+    t.checkExpect(Arrays.equals(frozen.path(0, n - 1, ctx), path), true);
+    t.checkExpect(frozen.toAdjacency().edgeCount(), edges);
+    FrozenMaze grid = MazeGenerator.generate(6, 4, 3).freeze();
+    t.checkExpect(grid.edgeCount(), 23);
+    t.checkExpect(new DijkstraSolver(grid.toAdjacency()).solve(0, 23),
+        (long) grid.distance(0, 23, grid.newContext()));
+
+    // an isolated cell has no path
+    GridMaze split = new GridMaze(2, 1, 0);
+    t.checkExpect(split.freeze().path(0, 1, new SearchContext(2)).length, 0);
+  }
+
+
+  // tests the perfect maze validator and the corpus driver
+  void testMazeValidator(Tester t) throws IOException, InterruptedException {
+    PerfectMazeValidator validator = new PerfectMazeValidator();
+    GridMaze maze = MazeGenerator.generate(13, 7, 5);
+    t.checkExpect(validator.check(maze).perfect(), true);
+    t.checkExpect(validator.check(MazeGenerator.generateParallel(9, 9, 2, 3)).perfect(), true);
+    MazeWorld world = new MazeWorld(6, new Random(4));
+    t.checkExpect(validator.check(GridMaze.fromRows(new BoardRows(world.board), 0)).perfect(),
+        true);
+
+    // an extra passage closes a cycle, a missing one splits the maze
+    GridMaze cycle = MazeGenerator.generate(13, 7, 5);
+    int closed = 0;
+    while (cycle.openRight(closed) || closed % 13 == 12) {
+      closed++;
+    }
+    cycle.setRight(closed, true);
+    PerfectCheck extra = validator.check(cycle);
+    t.checkExpect(extra.perfect(), false);
+    t.checkExpect(extra.cycles, 1);
+    t.checkExpect(extra.components, 1);
+    t.checkExpect(extra.firstCycle >= 0, true);
+    cycle.setRight(closed, false);
+    int open = 0;
+    while (!cycle.openDown(open)) {
+      open++;
+    }
+    cycle.setDown(open, false);
+    PerfectCheck split = validator.check(cycle);
+    t.checkExpect(split.perfect(), false);
+    t.checkExpect(split.passages, 89);
+    t.checkExpect(split.components, 2);
+    t.checkExpect(split.cycles, 0);
+    cycle.setDown(open, true);
+    cycle.setRight(12, true);
+    t.checkExpect(validator.check(cycle).outOfGrid, 1);
+    t.checkExpect(new PerfectMazeValidator().check(new GridMaze(1, 1, 0)).perfect(), true);
+
+    List<PerfectCheck> checks = PerfectMazeValidator.checkAll(
+        Arrays.asList(maze, cycle, MazeGenerator.generate(70, 3, 1)));
+    t.checkExpect(checks.get(0).perfect() && !checks.get(1).perfect() && checks.get(2).perfect(),
+        true);
+
+    // one file with a bad maze in third place, one cut off in the middle of a maze
+    Path good = Files.createTempFile("corpus", ".bin");
+    Path cut = Files.createTempFile("corpus", ".bin");
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      for (int seed = 0; seed < 4; seed++) {
+        (seed == 2 ? cycle : MazeGenerator.generate(10 + seed, 9, seed)).writeTo(out);
+      }
+      out.flush();
+      Files.write(good, bytes.toByteArray());
+      Files.write(cut, Arrays.copyOf(bytes.toByteArray(), bytes.size() - 5));
+      GridMaze back = GridMaze.readFrom(
+          new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+      t.checkExpect(back.width == 10 && back.passageCount() == 89
+          && Arrays.equals(back.rightOpen, MazeGenerator.generate(10, 9, 0).rightOpen), true);
+
+      List<CorpusFileReport> reports = CorpusValidator.validate(Arrays.asList(good, cut), 2);
+      t.checkExpect(reports.get(0).mazes, 4);
+      t.checkExpect(reports.get(0).imperfect, new ArrayList<Integer>(Arrays.asList(2)));
+      t.checkExpect(reports.get(0).ok(), false);
+      t.checkExpect(reports.get(1).mazes, 3);
+      t.checkExpect(reports.get(1).error != null, true);
+    }
+    finally {
+      Files.delete(good);
+      Files.delete(cut);
+    }
+  }
+
+  // tests a world that carves its maze a few edges per tick after its first frame
+  void testProgressiveStartup(Tester t) {
+    MazeWorld stepped = new MazeWorld(10, new Random(5), 0.3, 7);
+    MazeWorld direct = new MazeWorld(10, new Random(5), 0.3);
+    boolean closed = true;
+    for (Edge e : stepped.edgesAll) {
+      closed &= !e.isConnected();
+    }
+    t.checkExpect(closed, true);
+    t.checkExpect(stepped.generating, true);
+    t.checkExpect(stepped.edgesSpanningTree.size(), 0);
+
+    // keys wait for the maze
+    stepped.onKeyEvent("right");
+    stepped.onKeyEvent("b");
+    t.checkExpect(stepped.currentCell, stepped.cellFirst);
+    t.checkExpect(stepped.animate, false);
+    t.checkExpect(stepped.moves.size(), 0);
+
+    stepped.onTick();
+    t.checkExpect(stepped.generating, true);
+    t.checkExpect(stepped.edgesSpanningTree.size() > 0, true);
+    int ticks = 1;
+    while (stepped.generating) {
+      stepped.onTick();
+      ticks++;
+    }
+    t.checkExpect(ticks, 26);
+    t.checkExpect(stepped.edgesWorkList.size(), 0);
+    t.checkExpect(stepped.edgesSpanningTree.size(), 99);
+    t.checkExpect(stepped.spanningTree.edgesBraided.size(),
+        direct.spanningTree.edgesBraided.size());
+    boolean same = true;
+    for (int i = 0; i < direct.edgesAll.size(); i++) {
+      same &= stepped.edgesAll.get(i).isConnected() == direct.edgesAll.get(i).isConnected();
+    }
+    t.checkExpect(same, true);
+    t.checkExpect(stepped.spanningTree.getAdjacency().edgeCount(),
+        direct.spanningTree.getAdjacency().edgeCount());
+
+    // a reset carves the next maze the same way
+    stepped.onKeyEvent("r");
+    direct.onKeyEvent("r");
+    t.checkExpect(stepped.generating, true);
+    while (stepped.generating) {
+      stepped.onTick();
+    }
+    same = true;
+    for (int i = 0; i < direct.edgesAll.size(); i++) {
+      same &= stepped.edgesAll.get(i).isConnected() == direct.edgesAll.get(i).isConnected();
+    }
+    t.checkExpect(same, true);
+  }
+
+
+  // tests that a 1x1 board searches, solves and exports its single cell
+  void testSingleCellBoard(Tester t) {
+    MazeWorld one = new MazeWorld(1, new Random(2));
+    t.checkExpect(one.spanningTree.cellsById.length, 1);
+    t.checkExpect(one.spanningTree.getAdjacency().cellCount(), 1);
+    one.onKeyEvent("b");
+    one.onTick();
+    t.checkExpect(one.animate, false);
+    t.checkExpect(one.win, true);
+    t.checkExpect(one.freeze().cellCount(), 1);
+    t.checkExpect(one.fieldFrom(0).distance(0), 0);
+    t.checkExpect(MazeAnalytics.analyze(one.spanningTree.getAdjacency(), 1).solutionLength, 0);
+    t.checkExpect(one.solution().pathTo(0), new ArrayList<Integer>(Arrays.asList(0)));
+    t.checkExpect(new Graph(new ArrayList<Edge>(), new ArrayList<Edge>(),
+        new Cell[] {new Cell(0, 10, 10)}).toAdjacency().cellCount(), 1);
+  }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+import java.util.Arrays;
+
+// compressed sparse row adjacency of a maze
+// the open neighbors of cell id are neighbors[offsets[id]] up to neighbors[offsets[id + 1] - 1]
+// walking it allocates nothing:
+//   for (int i = adj.start(id); i < adj.end(id); i++) { int other = adj.neighbor(i); ... }
+class MazeAdjacency {
+  int[] offsets;
+  int[] neighbors;
+  int[] weights; // traversal cost of each passage, parallel to neighbors, null if all cost 1
+
+  // constructor
+  MazeAdjacency(int[] offsets, int[] neighbors) {
+    this(offsets, neighbors, null);
+  }
+
+  // constructor with passage weights
+  MazeAdjacency(int[] offsets, int[] neighbors, int[] weights) {
+    if (offsets.length == 0 || offsets[offsets.length - 1] != neighbors.length) {
+      throw new IllegalArgumentException("Offsets do not match the neighbor array");
+    }
+    if (weights != null && weights.length != neighbors.length) {
+      throw new IllegalArgumentException("Weights do not match the neighbor array");
+    }
+    this.offsets = offsets;
+    this.neighbors = neighbors;
+    this.weights = weights;
+  }
+
+  // builds the adjacency of an undirected graph given as edge endpoint arrays
+  // neighbors of each cell keep the order their edges appear in
+  static MazeAdjacency fromEdges(int cellCount, int[] from, int[] to, int edgeCount) {
+    return fromEdges(cellCount, from, to, null, edgeCount);
+  }
+
+  // builds the adjacency of an undirected weighted graph, weights may be null
+  static MazeAdjacency fromEdges(int cellCount, int[] from, int[] to, int[] edgeWeights,
+      int edgeCount) {
+    int[] offsets = new int[cellCount + 1];
+    offsets[cellCount] = edgeCount * 2;
+    MazeAdjacency adj = new MazeAdjacency(offsets, new int[edgeCount * 2],
+        edgeWeights == null ? null : new int[edgeCount * 2]);
+    adj.refill(from, to, edgeWeights, edgeCount);
+    return adj;
+  }
+
+  // can this adjacency be refilled with the given number of cells and edges?
+  boolean fits(int cellCount, int edgeCount) {
+    return this.cellCount() == cellCount && this.neighbors.length == edgeCount * 2;
+  }
+
+  // rewrites this adjacency in place from edge endpoint arrays,
+  // without allocating anything
+  // EFFECT: offsets, neighbors and weights are overwritten
+  void refill(int[] from, int[] to, int[] edgeWeights, int edgeCount) {
+    int cellCount = this.cellCount();
+    if (!this.fits(cellCount, edgeCount)) {
+      throw new IllegalArgumentException("Adjacency holds " + this.edgeCount() + " edges, not "
+          + edgeCount);
+    }
+    Arrays.fill(this.offsets, 0);
+    for (int e = 0; e < edgeCount; e++) {
+      this.offsets[from[e] + 1]++;
+      this.offsets[to[e] + 1]++;
+    }
+    for (int id = 0; id < cellCount; id++) {
+      this.offsets[id + 1] += this.offsets[id];
+    }
+
+    // offsets[id] serves as the insertion point of cell id while filling,
+    // which leaves it at the start of cell id + 1
+    for (int e = 0; e < edgeCount; e++) {
+      this.place(from[e], to[e], edgeWeights == null ? 1 : edgeWeights[e]);
+      this.place(to[e], from[e], edgeWeights == null ? 1 : edgeWeights[e]);
+    }
+    for (int id = cellCount; id > 0; id--) {
+      this.offsets[id] = this.offsets[id - 1];
+    }
+    this.offsets[0] = 0;
+  }
+
+  // EFFECT: stores other as the next neighbor of id while refilling
+  void place(int id, int other, int weight) {
+    int i = this.offsets[id];
+    this.neighbors[i] = other;
+    if (this.weights != null) {
+      this.weights[i] = weight;
+    }
+    this.offsets[id] = i + 1;
+  }
+
+  // number of cells
+  int cellCount() {
+    return this.offsets.length - 1;
+  }
+
+  // number of passages
+  int edgeCount() {
+    return this.neighbors.length / 2;
+  }
+
+  // first index into neighbors for the given cell
+  int start(int id) {
+    return this.offsets[id];
+  }
+
+  // one past the last index into neighbors for the given cell
+  int end(int id) {
+    return this.offsets[id + 1];
+  }
+
+  // the neighbor stored at the given index
+  int neighbor(int index) {
+    return this.neighbors[index];
+  }
+
+  // traversal cost of the passage stored at the given index
+  int weight(int index) {
+    return this.weights == null ? 1 : this.weights[index];
+  }
+
+  // number of open neighbors of the given cell
+  int degree(int id) {
+    return this.offsets[id + 1] - this.offsets[id];
+  }
+
+  // is there a passage between the two cells?
+  boolean connected(int a, int b) {
+    for (int i = this.offsets[a]; i < this.offsets[a + 1]; i++) {
+      if (this.neighbors[i] == b) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
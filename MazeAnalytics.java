@@ -0,0 +1,123 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// difficulty metrics of one maze
+class MazeStats {
+  int cells;
+  int diameter; // longest shortest path, in moves
+  int deadEnds; // cells with exactly one passage
+  int[] degreeCounts; // degreeCounts[d] is the number of cells with d passages
+  int solutionLength; // moves from start to goal, -1 if the goal cannot be reached
+  int turns; // changes of direction along the solution
+
+  // number of cells with three or more passages
+  int junctions() {
+    int junctions = 0;
+    for (int d = 3; d < this.degreeCounts.length; d++) {
+      junctions += this.degreeCounts[d];
+    }
+    return junctions;
+  }
+
+  // dead ends per cell
+  double deadEndDensity() {
+    return this.cells == 0 ? 0 : (double) this.deadEnds / this.cells;
+  }
+
+  public String toString() {
+    return "cells=" + cells + " diameter=" + diameter + " deadEnds=" + deadEnds + " junctions="
+        + this.junctions() + " solution=" + solutionLength + " turns=" + turns;
+  }
+}
+
+// computes difficulty metrics of generated mazes in linear time
+// from their compact adjacency, one maze per thread when run in bulk
+class MazeAnalytics {
+
+  // analyzes one maze laid out on a grid of the given width, cell id = row * width + col
+  static MazeStats analyze(MazeAdjacency adj, int width, int start, int goal) {
+    int n = adj.cellCount();
+    int[] dist = new int[n];
+    int[] parent = new int[n];
+    int[] queue = new int[n];
+    MazeStats stats = new MazeStats();
+    stats.cells = n;
+
+    int maxDegree = 0;
+    for (int id = 0; id < n; id++) {
+      maxDegree = Math.max(maxDegree, adj.degree(id));
+    }
+    stats.degreeCounts = new int[Math.max(5, maxDegree + 1)];
+    for (int id = 0; id < n; id++) {
+      stats.degreeCounts[adj.degree(id)]++;
+    }
+    stats.deadEnds = stats.degreeCounts[1];
+
+    // solution, and the first half of the double bfs from the start
+    int farthest = bfs(adj, start, dist, parent, queue);
+    stats.solutionLength = dist[goal];
+    stats.turns = stats.solutionLength < 0 ? 0 : countTurns(parent, goal, width);
+
+    // the farthest cell from anywhere is one end of the diameter, in a tree
+    // (on a braided maze this is a lower bound)
+    int other = bfs(adj, farthest, dist, parent, queue);
+    stats.diameter = dist[other];
+    return stats;
+  }
+
+  // analyzes a square maze of the given width, from the top left to the bottom right
+  static MazeStats analyze(MazeAdjacency adj, int width) {
+    return analyze(adj, width, 0, adj.cellCount() - 1);
+  }
+
+  // analyzes many square mazes of the same width in parallel, results in input order
+  static List<MazeStats> analyzeAll(List<MazeAdjacency> mazes, int width) {
+    return mazes.parallelStream().map(adj -> analyze(adj, width)).collect(Collectors.toList());
+  }
+
+  // breadth first search from source over the adjacency
+  // returns the cell reached last, which is the farthest one
+  // EFFECT: dist holds moves from source (-1 if unreached), parent the previous cell
+  static int bfs(MazeAdjacency adj, int source, int[] dist, int[] parent, int[] queue) {
+    Arrays.fill(dist, -1);
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = source;
+    dist[source] = 0;
+    parent[source] = -1;
+    int last = source;
+    while (head < tail) {
+      int id = queue[head++];
+      last = id;
+      for (int i = adj.start(id); i < adj.end(id); i++) {
+        int other = adj.neighbor(i);
+        if (dist[other] == -1) {
+          dist[other] = dist[id] + 1;
+          parent[other] = id;
+          queue[tail++] = other;
+        }
+      }
+    }
+    return last;
+  }
+
+  // counts direction changes on the path from the goal back along parent links
+  // each step's direction comes from its row and column change on a grid of the given width
+  static int countTurns(int[] parent, int goal, int width) {
+    int turns = 0;
+    int lastStep = 0;
+    int current = goal;
+    while (parent[current] != -1) {
+      int previous = parent[current];
+      // 1 or -1 across a row, 2 or -2 across a column
+      int step = 2 * (current / width - previous / width) + (current % width - previous % width);
+      if (lastStep != 0 && step != lastStep) {
+        turns++;
+      }
+      lastStep = step;
+      current = parent[current];
+    }
+    return turns;
+  }
+}
@@ -0,0 +1,56 @@
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JDK Flight Recorder events around each phase of the game loop
+// record with -XX:StartFlightRecording and look under the "Maze" category
+
+// one Graph.kruskal run
+@Name("maze.Generation")
+@Label("Maze Generation")
+@Category("Maze")
+class GenerationEvent extends Event {
+  @Label("Edges")
+  int edges;
+  @Label("Tree Edges")
+  int treeEdges;
+}
+
+// one call to Graph.search
+@Name("maze.SearchStep")
+@Label("Search Step")
+@Category("Maze")
+class SearchStepEvent extends Event {
+  @Label("Frontier Size")
+  int frontier;
+  @Label("Finished")
+  boolean finished;
+}
+
+// one call to Graph.reconstruct
+@Name("maze.Reconstruct")
+@Label("Path Reconstruction")
+@Category("Maze")
+class ReconstructEvent extends Event {
+  @Label("Path Length")
+  int pathLength;
+}
+
+// one call to MazeWorld.makeScene
+@Name("maze.Scene")
+@Label("Make Scene")
+@Category("Maze")
+class SceneEvent extends Event {
+  @Label("Images Placed")
+  int images;
+}
+
+// one call to MazeWorld.onTick, covering the phases above
+@Name("maze.Tick")
+@Label("Tick")
+@Category("Maze")
+class TickEvent extends Event {
+  @Label("Animating")
+  boolean animating;
+}
@@ -0,0 +1,465 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+// a maze read one row of cells at a time, top to bottom
+// nothing but the current row has to exist, so the maze can be far larger than memory
+interface MazeRows {
+
+  // cells per row
+  int width();
+
+  // number of rows
+  int height();
+
+  // fills the passages of the next row
+  // rightOpen[col] is true if the cell has a passage to its right,
+  // downOpen[col] if it has one to the cell below
+  // EFFECT: the cursor moves down one row
+  void nextRow(boolean[] rightOpen, boolean[] downOpen);
+}
+
+// the cells of a path through a MazeRows, read one row at a time alongside it
+interface PathRows {
+
+  // fills which cells of the next row are on the path
+  // EFFECT: the cursor moves down one row
+  void nextRow(boolean[] onPath);
+}
+
+// the rows of a path kept as one bit per cell id (row * width + col)
+// a BitSet only reaches Integer.MAX_VALUE ids, so larger mazes need their own PathRows
+class BitSetPathRows implements PathRows {
+  BitSet cells;
+  int width;
+  int row;
+
+  // constructor
+  BitSetPathRows(BitSet cells, int width, int height) {
+    if ((long) width * height > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("A BitSet cannot hold the path of a " + width + "x"
+          + height + " maze");
+    }
+    this.cells = cells;
+    this.width = width;
+  }
+
+  // EFFECT: the cursor moves down one row
+  public void nextRow(boolean[] onPath) {
+    int first = this.row * this.width;
+    for (int col = 0; col < this.width; col++) {
+      onPath[col] = this.cells.get(first + col);
+    }
+    this.row++;
+  }
+}
+
+// a perfect maze made by eller's algorithm, one row at a time in O(width) memory
+// cells of the current row carry the label of the set they belong to,
+// sets are joined with a union-find over the labels that is reset every row
+class EllerMaze implements MazeRows {
+  int width;
+  int height;
+  int row;
+  SplittableRandom random;
+  int[] label; // set label of each cell of the current row, in [0, width)
+  int[] parent; // union-find over labels, for the current row only
+  boolean[] hasDown; // does the set of this root label go down?
+  int[] lastCol; // last column of the set of this root label
+  int[] free; // labels no cell of the next row carries yet
+
+  // constructor
+  EllerMaze(int width, int height, long seed) {
+    if (width < 1 || height < 1) {
+      throw new IllegalArgumentException("Maze must be at least 1x1");
+    }
+    this.width = width;
+    this.height = height;
+    this.random = new SplittableRandom(seed);
+    this.label = new int[width];
+    this.parent = new int[width];
+    this.hasDown = new boolean[width];
+    this.lastCol = new int[width];
+    this.free = new int[width];
+    for (int col = 0; col < width; col++) {
+      this.label[col] = col;
+    }
+  }
+
+  public int width() {
+    return this.width;
+  }
+
+  public int height() {
+    return this.height;
+  }
+
+  // joins neighbors of different sets at random, every one of them on the last row,
+  // then gives every set at least one passage down
+  // EFFECT: the labels are moved on to the next row
+  public void nextRow(boolean[] rightOpen, boolean[] downOpen) {
+    if (this.row >= this.height) {
+      throw new IllegalStateException("Every row has been read");
+    }
+    boolean last = this.row == this.height - 1;
+    for (int l = 0; l < this.width; l++) {
+      this.parent[l] = l;
+    }
+
+    for (int col = 0; col < this.width - 1; col++) {
+      int a = UnionFind.find(this.parent, this.label[col]);
+      int b = UnionFind.find(this.parent, this.label[col + 1]);
+      rightOpen[col] = a != b && (last || this.random.nextBoolean());
+      if (rightOpen[col]) {
+        this.parent[a] = b;
+      }
+    }
+    rightOpen[this.width - 1] = false;
+    this.row++;
+    if (last) {
+      Arrays.fill(downOpen, 0, this.width, false);
+      return;
+    }
+
+    Arrays.fill(this.hasDown, false);
+    for (int col = 0; col < this.width; col++) {
+      int root = UnionFind.find(this.parent, this.label[col]);
+      downOpen[col] = this.random.nextBoolean();
+      if (downOpen[col]) {
+        this.hasDown[root] = true;
+      }
+      this.lastCol[root] = col;
+    }
+    for (int col = 0; col < this.width; col++) {
+      int root = UnionFind.find(this.parent, this.label[col]);
+      if (!this.hasDown[root] && this.lastCol[root] == col) {
+        downOpen[col] = true;
+        this.hasDown[root] = true;
+      }
+    }
+
+    // cells below a passage keep their set, the others start new ones
+    // with the labels of sets that did not carry on
+    int freeCount = 0;
+    for (int l = 0; l < this.width; l++) {
+      if (!this.hasDown[l]) {
+        this.free[freeCount++] = l;
+      }
+    }
+    for (int col = 0; col < this.width; col++) {
+      if (downOpen[col]) {
+        this.label[col] = UnionFind.find(this.parent, this.label[col]);
+      }
+      else {
+        this.label[col] = this.free[--freeCount];
+      }
+    }
+  }
+}
+
+// the rows of a maze already generated as passage bitmaps
+class GridMazeRows implements MazeRows {
+  GridMaze maze;
+  int row;
+
+  // constructor
+  GridMazeRows(GridMaze maze) {
+    this.maze = maze;
+  }
+
+  public int width() {
+    return this.maze.width;
+  }
+
+  public int height() {
+    return this.maze.height;
+  }
+
+  // EFFECT: the cursor moves down one row
+  public void nextRow(boolean[] rightOpen, boolean[] downOpen) {
+    for (int col = 0; col < this.maze.width; col++) {
+      int id = this.row * this.maze.width + col;
+      rightOpen[col] = this.maze.openRight(id);
+      downOpen[col] = this.maze.openDown(id);
+    }
+    this.row++;
+  }
+}
+
+// the rows of a game board, read from its edges
+class BoardRows implements MazeRows {
+  ArrayList<ArrayList<Cell>> board;
+  int row;
+
+  // constructor
+  BoardRows(ArrayList<ArrayList<Cell>> board) {
+    this.board = board;
+  }
+
+  public int width() {
+    return this.board.get(0).size();
+  }
+
+  public int height() {
+    return this.board.size();
+  }
+
+  // EFFECT: the cursor moves down one row
+  public void nextRow(boolean[] rightOpen, boolean[] downOpen) {
+    ArrayList<Cell> cells = this.board.get(this.row);
+    for (int col = 0; col < cells.size(); col++) {
+      Cell cell = cells.get(col);
+      rightOpen[col] = cell.right != null && cell.right.isConnected();
+      downOpen[col] = cell.bottom != null && cell.bottom.isConnected();
+    }
+    this.row++;
+  }
+}
+
+// writes an 8 bit palette png one pixel row at a time
+// compressed rows are cut into IDAT chunks as they fill, so nothing but
+// one chunk buffer is held no matter how large the image is
+class PngWriter extends OutputStream {
+  static final int CHUNK = 1 << 16;
+  static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+
+  OutputStream out;
+  int width;
+  int height;
+  int rowsWritten;
+  DeflaterOutputStream deflater;
+  byte[] chunk = new byte[CHUNK]; // compressed bytes waiting for their IDAT chunk
+  int chunkSize;
+
+  // constructor, writes the header and the palette of packed rgb colors
+  PngWriter(OutputStream out, int width, int height, int[] palette) throws IOException {
+    if (width < 1 || height < 1 || palette.length < 1 || palette.length > 256) {
+      throw new IllegalArgumentException("Bad png size or palette");
+    }
+    this.out = out;
+    this.width = width;
+    this.height = height;
+    out.write(SIGNATURE);
+
+    byte[] header = new byte[13];
+    putInt(header, 0, width);
+    putInt(header, 4, height);
+    header[8] = 8; // bits per pixel
+    header[9] = 3; // palette indices
+    this.writeChunk("IHDR", header, header.length);
+
+    byte[] colors = new byte[palette.length * 3];
+    for (int i = 0; i < palette.length; i++) {
+      colors[3 * i] = (byte) (palette[i] >> 16);
+      colors[3 * i + 1] = (byte) (palette[i] >> 8);
+      colors[3 * i + 2] = (byte) palette[i];
+    }
+    this.writeChunk("PLTE", colors, colors.length);
+    // the fastest level: maze rows are regular enough that the better levels
+    // shrink the file by a third at five times the cost
+    this.deflater = new DeflaterOutputStream(this, new Deflater(Deflater.BEST_SPEED),
+        CHUNK);
+  }
+
+  // writes one row of palette indices, row[offset] up to row[offset + width - 1]
+  // EFFECT: the row is compressed, full IDAT chunks are written out
+  void writeRow(byte[] row, int offset) throws IOException {
+    if (this.rowsWritten >= this.height) {
+      throw new IllegalStateException("Every row has been written");
+    }
+    this.deflater.write(0); // no filter
+    this.deflater.write(row, offset, this.width);
+    this.rowsWritten++;
+  }
+
+  // EFFECT: flushes the last IDAT chunk and writes the end of the image
+  void finish() throws IOException {
+    if (this.rowsWritten != this.height) {
+      throw new IllegalStateException(this.rowsWritten + " of " + this.height + " rows written");
+    }
+    this.deflater.finish();
+    this.flushChunk();
+    this.writeChunk("IEND", new byte[0], 0);
+    this.out.flush();
+  }
+
+  // takes compressed bytes from the deflater
+  // EFFECT: bytes are buffered, a full buffer becomes an IDAT chunk
+  public void write(int b) throws IOException {
+    this.chunk[this.chunkSize++] = (byte) b;
+    if (this.chunkSize == CHUNK) {
+      this.flushChunk();
+    }
+  }
+
+  // takes compressed bytes from the deflater
+  // EFFECT: bytes are buffered, every full buffer becomes an IDAT chunk
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    while (length > 0) {
+      int n = Math.min(length, CHUNK - this.chunkSize);
+      System.arraycopy(bytes, offset, this.chunk, this.chunkSize, n);
+      this.chunkSize += n;
+      offset += n;
+      length -= n;
+      if (this.chunkSize == CHUNK) {
+        this.flushChunk();
+      }
+    }
+  }
+
+  // EFFECT: writes the buffered compressed bytes as one IDAT chunk
+  void flushChunk() throws IOException {
+    if (this.chunkSize > 0) {
+      this.writeChunk("IDAT", this.chunk, this.chunkSize);
+      this.chunkSize = 0;
+    }
+  }
+
+  // EFFECT: writes length, type, data and crc of one chunk
+  void writeChunk(String type, byte[] data, int length) throws IOException {
+    byte[] head = new byte[8];
+    putInt(head, 0, length);
+    byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+    System.arraycopy(name, 0, head, 4, 4);
+    CRC32 crc = new CRC32();
+    crc.update(name);
+    crc.update(data, 0, length);
+    byte[] tail = new byte[4];
+    putInt(tail, 0, (int) crc.getValue());
+    this.out.write(head);
+    this.out.write(data, 0, length);
+    this.out.write(tail);
+  }
+
+  // EFFECT: stores the int big endian at bytes[offset]
+  static void putInt(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) (value >>> 24);
+    bytes[offset + 1] = (byte) (value >>> 16);
+    bytes[offset + 2] = (byte) (value >>> 8);
+    bytes[offset + 3] = (byte) value;
+  }
+}
+
+// exports a maze of any size as a png, painted one band of cell rows at a time
+// with the same layout as the game: walls on the right and bottom pixels of a cell,
+// a black outline around the board, and solution cells in red
+class MazeExporter {
+  static final int DEFAULT_BAND_ROWS = 16;
+  static final byte FLOOR = 0;
+  static final byte WALL = 1;
+  static final byte BORDER = 2;
+  static final byte PATH = 3;
+  static final int[] PALETTE = {0xffffff, 0x0000ff, 0x000000, 0xff0000};
+
+  // writes the maze as a png, cellSize pixels per cell side
+  // solution gives the cells to paint red row by row, in step with the maze, or is null
+  // memory is one band of bandRows cell rows, whatever the size of the maze
+  static void export(MazeRows maze, int cellSize, PathRows solution, int bandRows,
+      OutputStream out) throws IOException {
+    int width = maze.width();
+    int height = maze.height();
+    if (cellSize < 2 || bandRows < 1) {
+      throw new IllegalArgumentException("Cells need 2 pixels and bands at least one row");
+    }
+    if ((long) width * cellSize > Integer.MAX_VALUE / 2
+        || (long) height * cellSize > Integer.MAX_VALUE / 2) {
+      throw new IllegalArgumentException("Image is too large for a png");
+    }
+    int pixelsWide = width * cellSize;
+    int pixelsHigh = height * cellSize;
+    bandRows = Math.min(bandRows, height);
+    if ((long) bandRows * cellSize * pixelsWide > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("A band of " + bandRows + " rows is too large, use fewer");
+    }
+    PngWriter png = new PngWriter(out, pixelsWide, pixelsHigh, PALETTE);
+    boolean[] rightOpen = new boolean[width];
+    boolean[] downOpen = new boolean[width];
+    boolean[] onPath = solution == null ? null : new boolean[width];
+    byte[] band = new byte[bandRows * cellSize * pixelsWide];
+
+    for (int top = 0; top < height; top += bandRows) {
+      int rows = Math.min(bandRows, height - top);
+      for (int r = 0; r < rows; r++) {
+        maze.nextRow(rightOpen, downOpen);
+        if (solution != null) {
+          solution.nextRow(onPath);
+        }
+        paintRow(band, r * cellSize * pixelsWide, width, cellSize, rightOpen, downOpen, onPath);
+      }
+      for (int y = 0; y < rows * cellSize; y++) {
+        int start = y * pixelsWide;
+        int pixelY = top * cellSize + y;
+        band[start] = BORDER;
+        band[start + pixelsWide - 1] = BORDER;
+        if (pixelY == 0 || pixelY == pixelsHigh - 1) {
+          Arrays.fill(band, start, start + pixelsWide, BORDER);
+        }
+        png.writeRow(band, start);
+      }
+    }
+    png.finish();
+  }
+
+  // writes the maze as a png, the solution given as cell ids in a BitSet, or null
+  // only for mazes of at most Integer.MAX_VALUE cells
+  static void export(MazeRows maze, int cellSize, BitSet solution, int bandRows,
+      OutputStream out) throws IOException {
+    export(maze, cellSize,
+        solution == null ? null : new BitSetPathRows(solution, maze.width(), maze.height()),
+        bandRows, out);
+  }
+
+  // writes the maze as a png in bands of the default size
+  static void export(MazeRows maze, int cellSize, BitSet solution, OutputStream out)
+      throws IOException {
+    export(maze, cellSize, solution, DEFAULT_BAND_ROWS, out);
+  }
+
+  // paints the cellSize pixel rows of one cell row, starting at band[start]
+  // onPath marks the row's solution cells, or is null for no solution
+  // EFFECT: the pixels of the row in band are overwritten
+  static void paintRow(byte[] band, int start, int width, int cellSize,
+      boolean[] rightOpen, boolean[] downOpen, boolean[] onPath) {
+    int pixelsWide = width * cellSize;
+    for (int col = 0; col < width; col++) {
+      Arrays.fill(band, start + col * cellSize, start + (col + 1) * cellSize,
+          onPath != null && onPath[col] ? PATH : FLOOR);
+      if (!rightOpen[col] && col < width - 1) {
+        band[start + (col + 1) * cellSize - 1] = WALL;
+      }
+    }
+    for (int k = 1; k < cellSize; k++) {
+      System.arraycopy(band, start, band, start + k * pixelsWide, pixelsWide);
+    }
+    int lastRow = start + (cellSize - 1) * pixelsWide;
+    for (int col = 0; col < width; col++) {
+      if (!downOpen[col]) {
+        Arrays.fill(band, lastRow + col * cellSize, lastRow + (col + 1) * cellSize, WALL);
+      }
+    }
+  }
+
+  // the cells on the path from the top left to the bottom right corner of the maze
+  static BitSet solution(GridMaze maze) {
+    MazeAdjacency adj = maze.toAdjacency();
+    int n = adj.cellCount();
+    int[] dist = new int[n];
+    int[] parent = new int[n];
+    MazeAnalytics.bfs(adj, 0, dist, parent, new int[n]);
+    BitSet path = new BitSet(n);
+    if (dist[n - 1] < 0) {
+      return path;
+    }
+    for (int id = n - 1; id != -1; id = parent[id]) {
+      path.set(id);
+    }
+    return path;
+  }
+}
@@ -0,0 +1,251 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// ranges a generated maze has to fall into
+class DifficultyTarget {
+  int minSolution;
+  int maxSolution;
+  double minDeadEndDensity;
+  double maxDeadEndDensity;
+
+  // constructor
+  DifficultyTarget(int minSolution, int maxSolution, double minDeadEndDensity,
+      double maxDeadEndDensity) {
+    this.minSolution = minSolution;
+    this.maxSolution = maxSolution;
+    this.minDeadEndDensity = minDeadEndDensity;
+    this.maxDeadEndDensity = maxDeadEndDensity;
+  }
+
+  // target on the solution length only
+  static DifficultyTarget solutionBetween(int min, int max) {
+    return new DifficultyTarget(min, max, 0, 1);
+  }
+
+  // does the maze fall into every range?
+  boolean accepts(MazeStats stats) {
+    return stats.solutionLength >= this.minSolution && stats.solutionLength <= this.maxSolution
+        && stats.deadEndDensity() >= this.minDeadEndDensity
+        && stats.deadEndDensity() <= this.maxDeadEndDensity;
+  }
+}
+
+// generates perfect mazes without any Cell, Edge or scene objects
+class MazeGenerator {
+
+  // kruskal over the grid with edges taken in the order of their counter based keys,
+  // the single thread case of generateParallel, so both give the same maze for a seed
+  static GridMaze generate(int width, int height, long seed) {
+    GridMaze maze = new GridMaze(width, height, seed);
+    int n = width * height;
+    int[] parent = new int[n];
+    for (int id = 0; id < n; id++) {
+      parent[id] = id;
+    }
+    long[] keys = new long[2 * n];
+    int count = edgeKeys(keys, width, n, 0, height, seed);
+    sortByWeight(keys, count);
+    kruskal(keys, count, width, n, parent, maze);
+    return maze;
+  }
+
+  // sorts keys whose edge indexes already ascend by their weights, in two stable
+  // counting passes of 16 bits, giving the same order as Arrays.sort in linear time
+  // EFFECT: the first count keys are sorted
+  static void sortByWeight(long[] keys, int count) {
+    long[] from = keys;
+    long[] to = new long[count];
+    int[] starts = new int[1 << 16];
+    for (int shift = 32; shift < 64; shift += 16) {
+      Arrays.fill(starts, 0);
+      for (int k = 0; k < count; k++) {
+        starts[(int) (from[k] >>> shift) & 0xffff]++;
+      }
+      int sum = 0;
+      for (int d = 0; d < starts.length; d++) {
+        int c = starts[d];
+        starts[d] = sum;
+        sum += c;
+      }
+      for (int k = 0; k < count; k++) {
+        to[starts[(int) (from[k] >>> shift) & 0xffff]++] = from[k];
+      }
+      long[] swap = from;
+      from = to;
+      to = swap;
+    }
+  }
+
+  // the random sort key of edge e, from the seed and the edge index alone,
+  // so no generator state is shared and any thread can compute any key
+  // the high half is the random weight, the low half the edge index,
+  // which makes every key distinct and the minimum spanning tree unique
+  static long edgeKey(long seed, int e) {
+    long weight = SplitMix.next(seed ^ (e * 0x9E3779B97F4A7C15L)) >>> 33;
+    return (weight << 32) | (e & 0xffffffffL);
+  }
+
+  // kruskal over counter based edge keys, split into bands of rows generated in parallel
+  // each band keeps only the edges of its own minimum spanning forest,
+  // which are the only inner edges that can be in the whole tree,
+  // then one pass over those and the edges between bands finishes the tree
+  // the tree is unique, so the maze is bit for bit the same for any number of threads
+  static GridMaze generateParallel(int width, int height, long seed, int threads)
+      throws InterruptedException {
+    GridMaze maze = new GridMaze(width, height, seed);
+    int n = width * height;
+    int bands = Math.max(1, Math.min(threads, height));
+    int[] parent = new int[n];
+    for (int id = 0; id < n; id++) {
+      parent[id] = id;
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(bands);
+    ArrayList<Callable<long[]>> workers = new ArrayList<Callable<long[]>>();
+    for (int b = 0; b < bands; b++) {
+      int top = height * b / bands;
+      int bottom = height * (b + 1) / bands;
+      // bands cover disjoint cells, so they share the parent array without locking
+      workers.add(() -> bandForest(width, n, top, bottom, seed, parent));
+    }
+    ArrayList<long[]> forests = new ArrayList<long[]>();
+    try {
+      for (Future<long[]> f : pool.invokeAll(workers)) {
+        forests.add(f.get());
+      }
+    }
+    catch (ExecutionException e) {
+      throw new IllegalStateException("Band generation failed", e.getCause());
+    }
+    finally {
+      pool.shutdownNow();
+    }
+
+    // the surviving edges of every band, then the down edges between bands
+    int count = 0;
+    for (long[] forest : forests) {
+      count += forest.length;
+    }
+    long[] keys = new long[count + (bands - 1) * width];
+    count = 0;
+    for (long[] forest : forests) {
+      System.arraycopy(forest, 0, keys, count, forest.length);
+      count += forest.length;
+    }
+    for (int b = 1; b < bands; b++) {
+      int above = (height * b / bands - 1) * width;
+      for (int col = 0; col < width; col++) {
+        keys[count++] = edgeKey(seed, n + above + col);
+      }
+    }
+    Arrays.parallelSort(keys);
+
+    for (int id = 0; id < n; id++) {
+      parent[id] = id;
+    }
+    kruskal(keys, keys.length, width, n, parent, maze);
+    return maze;
+  }
+
+  // minimum spanning forest of the inner edges of rows top to bottom - 1
+  // in a maze of n cells, returns the keys of its edges
+  // EFFECT: parent entries of the band's cells are joined
+  static long[] bandForest(int width, int n, int top, int bottom, long seed, int[] parent) {
+    long[] keys = new long[2 * (bottom - top) * width];
+    int count = edgeKeys(keys, width, n, top, bottom, seed);
+    Arrays.sort(keys, 0, count);
+    return Arrays.copyOf(keys, kruskal(keys, count, width, n, parent, null));
+  }
+
+  // fills keys with the keys of the inner edges of rows top to bottom - 1,
+  // in ascending edge index
+  // edge e < n is the right edge of cell e, otherwise the bottom edge of cell e - n
+  // returns the number of keys
+  // EFFECT: the front of keys is overwritten
+  static int edgeKeys(long[] keys, int width, int n, int top, int bottom, long seed) {
+    int last = bottom * width;
+    int count = 0;
+    for (int id = top * width; id < last; id++) {
+      if (id % width != width - 1) {
+        keys[count++] = edgeKey(seed, id);
+      }
+    }
+    for (int id = top * width; id + width < last; id++) {
+      keys[count++] = edgeKey(seed, n + id);
+    }
+    return count;
+  }
+
+  // joins edges in key order, compacting the accepted keys to the front of keys
+  // and opening them in the maze when one is given
+  // returns the number of accepted edges
+  // EFFECT: parent is joined, keys is reordered, maze passages are opened
+  static int kruskal(long[] keys, int count, int width, int n, int[] parent, GridMaze maze) {
+    int accepted = 0;
+    for (int k = 0; k < count; k++) {
+      int e = (int) keys[k];
+      int a = e < n ? e : e - n;
+      int b = e < n ? a + 1 : a + width;
+      int rootA = UnionFind.find(parent, a);
+      int rootB = UnionFind.find(parent, b);
+      if (rootA != rootB) {
+        parent[rootA] = rootB;
+        keys[accepted++] = keys[k];
+        if (maze != null && e < n) {
+          maze.setRight(a, true);
+        }
+        else if (maze != null) {
+          maze.setDown(a, true);
+        }
+      }
+    }
+    return accepted;
+  }
+
+  // generates square mazes on every core until one falls into the target,
+  // then cancels the other workers and returns it
+  // each worker draws its own seeds from a split of the given seed
+  // throws IllegalStateException if no maze matched within maxAttempts
+  static GridMaze generateMatching(int width, DifficultyTarget target, long seed, int maxAttempts)
+      throws InterruptedException {
+    int threads = Runtime.getRuntime().availableProcessors();
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    AtomicInteger attempts = new AtomicInteger();
+    SplittableRandom seeds = new SplittableRandom(seed);
+    ArrayList<Callable<GridMaze>> workers = new ArrayList<Callable<GridMaze>>();
+    for (int i = 0; i < threads; i++) {
+      SplittableRandom own = seeds.split();
+      workers.add(() -> {
+        while (attempts.getAndIncrement() < maxAttempts) {
+          if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException();
+          }
+          GridMaze maze = generate(width, width, own.nextLong());
+          if (target.accepts(MazeAnalytics.analyze(maze.toAdjacency(), width))) {
+            return maze;
+          }
+        }
+        throw new IllegalStateException("No maze matched the target");
+      });
+    }
+
+    try {
+      // returns the first successful result and cancels the rest
+      return pool.invokeAny(workers);
+    }
+    catch (ExecutionException e) {
+      throw new IllegalStateException(
+          "No maze matched the target in " + maxAttempts + " attempts", e.getCause());
+    }
+    finally {
+      pool.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,207 @@
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// counters and gauges for generation, search, drawing and input
+// counters are LongAdders so the hot paths never contend on one cache line,
+// gauges are plain volatile writes from the single game thread
+class MazeMetrics implements MazeMetricsMBean {
+  static final String OBJECT_NAME = "maze:type=MazeMetrics";
+  // one frame at 60 frames per second
+  static final long FRAME_BUDGET_NANOS = 16_000_000L;
+  static final MazeMetrics INSTANCE = register(new MazeMetrics());
+
+  LongAdder generations = new LongAdder();
+  LongAdder edgesProcessed = new LongAdder();
+  LongAdder nodesExpanded = new LongAdder();
+  LongAdder scenes = new LongAdder();
+  LongAdder keyPresses = new LongAdder();
+  LongAdder rasterFrames = new LongAdder();
+
+  volatile long lastGenerationNanos;
+  volatile long frontierSize;
+  volatile long lastSceneNanos;
+  volatile long imagesLastFrame;
+  volatile long lastRasterNanos;
+
+  // onTick latencies, guarded by its own monitor
+  LatencyHistogram tickLatency = new LatencyHistogram();
+
+  // key presses per second of the last RATE_SECONDS seconds, one slot per second,
+  // written by recordKeyPress and only read by the rate getter, guarded by rateCounts
+  static final int RATE_SECONDS = 10;
+  long[] rateSeconds = newRateSeconds(); // the second each slot counts
+  long[] rateCounts = new long[RATE_SECONDS];
+
+  // slots that count no second yet
+  static long[] newRateSeconds() {
+    long[] seconds = new long[RATE_SECONDS];
+    Arrays.fill(seconds, Long.MIN_VALUE);
+    return seconds;
+  }
+
+  // registers the metrics with the platform MBean server so jconsole can see them
+  // a second registration (e.g. another class loader) is ignored
+  static MazeMetrics register(MazeMetrics metrics) {
+    try {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(metrics,
+          new ObjectName(OBJECT_NAME));
+    }
+    catch (JMException e) {
+      // already registered or no server, the counters still work
+    }
+    return metrics;
+  }
+
+  // EFFECT: records one finished kruskal run
+  void recordGeneration(long nanos, int edges) {
+    this.lastGenerationNanos = nanos;
+    this.generations.increment();
+    this.edgesProcessed.add(edges);
+  }
+
+  // EFFECT: records one expanded search cell and the worklist size after it
+  void recordExpansion(int frontier) {
+    this.nodesExpanded.increment();
+    this.frontierSize = frontier;
+  }
+
+  // EFFECT: records one drawn frame
+  void recordScene(long nanos, int images) {
+    this.lastSceneNanos = nanos;
+    this.imagesLastFrame = images;
+    this.scenes.increment();
+  }
+
+  // EFFECT: records one frame painted by the raster renderer
+  void recordRasterFrame(long nanos) {
+    this.lastRasterNanos = nanos;
+    this.rasterFrames.increment();
+  }
+
+  // EFFECT: records one onTick duration
+  void recordTick(long nanos) {
+    synchronized (this.tickLatency) {
+      this.tickLatency.record(nanos);
+    }
+  }
+
+  // EFFECT: records one handled key event
+  void recordKeyPress() {
+    this.recordKeyPress(System.nanoTime());
+  }
+
+  // EFFECT: records one key event handled at the given time, counting it in its second's slot
+  void recordKeyPress(long nanos) {
+    this.keyPresses.increment();
+    long second = Math.floorDiv(nanos, 1_000_000_000L);
+    int slot = (int) Math.floorMod(second, (long) RATE_SECONDS);
+    synchronized (this.rateCounts) {
+      if (this.rateSeconds[slot] != second) {
+        this.rateSeconds[slot] = second;
+        this.rateCounts[slot] = 0;
+      }
+      this.rateCounts[slot]++;
+    }
+  }
+
+  public long getLastGenerationNanos() {
+    return this.lastGenerationNanos;
+  }
+
+  public long getGenerations() {
+    return this.generations.sum();
+  }
+
+  public long getEdgesProcessed() {
+    return this.edgesProcessed.sum();
+  }
+
+  public long getNodesExpanded() {
+    return this.nodesExpanded.sum();
+  }
+
+  public long getFrontierSize() {
+    return this.frontierSize;
+  }
+
+  public long getLastSceneNanos() {
+    return this.lastSceneNanos;
+  }
+
+  public long getScenes() {
+    return this.scenes.sum();
+  }
+
+  public long getImagesLastFrame() {
+    return this.imagesLastFrame;
+  }
+
+  public long getLastRasterNanos() {
+    return this.lastRasterNanos;
+  }
+
+  public long getRasterFrames() {
+    return this.rasterFrames.sum();
+  }
+
+  public long getKeyPresses() {
+    return this.keyPresses.sum();
+  }
+
+  public String dumpTickLatency() {
+    synchronized (this.tickLatency) {
+      return this.tickLatency.dump();
+    }
+  }
+
+  public long getTicksOverBudget() {
+    synchronized (this.tickLatency) {
+      return this.tickLatency.countAbove(FRAME_BUDGET_NANOS);
+    }
+  }
+
+  public double getKeyPressesPerSecond() {
+    return this.keyPressesPerSecond(System.nanoTime());
+  }
+
+  // key presses per second over the RATE_SECONDS seconds up to the given time,
+  // reading changes nothing, so any number of clients can poll it
+  double keyPressesPerSecond(long nanos) {
+    long second = Math.floorDiv(nanos, 1_000_000_000L);
+    long count = 0;
+    synchronized (this.rateCounts) {
+      for (int slot = 0; slot < RATE_SECONDS; slot++) {
+        if (this.rateSeconds[slot] > second - RATE_SECONDS && this.rateSeconds[slot] <= second) {
+          count += this.rateCounts[slot];
+        }
+      }
+    }
+    return (double) count / RATE_SECONDS;
+  }
+
+  // EFFECT: every counter and gauge goes back to zero
+  public synchronized void reset() {
+    this.generations.reset();
+    this.edgesProcessed.reset();
+    this.nodesExpanded.reset();
+    this.scenes.reset();
+    this.keyPresses.reset();
+    this.rasterFrames.reset();
+    this.lastGenerationNanos = 0;
+    this.frontierSize = 0;
+    this.lastSceneNanos = 0;
+    this.imagesLastFrame = 0;
+    this.lastRasterNanos = 0;
+    synchronized (this.rateCounts) {
+      Arrays.fill(this.rateSeconds, Long.MIN_VALUE);
+      Arrays.fill(this.rateCounts, 0);
+    }
+    synchronized (this.tickLatency) {
+      this.tickLatency.reset();
+    }
+  }
+}
@@ -0,0 +1,49 @@
+// management interface of MazeMetrics, as seen from jconsole
+// (JMX only accepts public MBean interfaces)
+public interface MazeMetricsMBean {
+
+  // nanoseconds spent in the last Graph.kruskal run
+  long getLastGenerationNanos();
+
+  // number of Graph.kruskal runs
+  long getGenerations();
+
+  // edges taken off the kruskal worklist, over all runs
+  long getEdgesProcessed();
+
+  // cells expanded by Graph.search, over all searches
+  long getNodesExpanded();
+
+  // cells waiting on the search worklist after the last search step
+  long getFrontierSize();
+
+  // nanoseconds spent in the last makeScene
+  long getLastSceneNanos();
+
+  // number of makeScene calls
+  long getScenes();
+
+  // images placed by the last makeScene
+  long getImagesLastFrame();
+
+  // nanoseconds spent painting the last raster frame
+  long getLastRasterNanos();
+
+  // number of frames painted by the raster renderer
+  long getRasterFrames();
+
+  // key events handled per second over the last ten seconds
+  double getKeyPressesPerSecond();
+
+  // key events handled, over all time
+  long getKeyPresses();
+
+  // p50, p99, p999 and max of onTick durations
+  String dumpTickLatency();
+
+  // onTick calls that took longer than one 16ms frame
+  long getTicksOverBudget();
+
+  // clears every counter
+  void reset();
+}
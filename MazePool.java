@@ -0,0 +1,166 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// keeps a bounded queue of generated mazes of one size ready to be taken
+// a background thread refills the queue after every take,
+// and stops once nobody has taken a maze for idleMillis
+class MazePool {
+  static final int DEFAULT_DEPTH = 4;
+  static final long DEFAULT_MAX_BYTES = 64L << 20;
+  static final long DEFAULT_IDLE_MILLIS = 30_000;
+
+  int width;
+  int capacity; // mazes kept ready, the depth cut down to fit the memory cap
+  long idleMillis;
+  ArrayBlockingQueue<GridMaze> ready;
+  SplittableRandom seeds; // guarded by this
+  Thread producer; // null while stopped, guarded by this
+  long lastTake; // nanoTime of the last take, guarded by this
+  AtomicInteger generated = new AtomicInteger(); // by the background thread
+  AtomicInteger misses = new AtomicInteger(); // takes that found the queue empty
+
+  // constructor
+  // depth is the most mazes kept ready, maxBytes caps the memory they hold
+  MazePool(int width, int depth, long maxBytes, long seed, long idleMillis) {
+    if (width < 1 || depth < 1) {
+      throw new IllegalArgumentException("Pool needs a width and a depth of at least 1");
+    }
+    this.width = width;
+    this.capacity = (int) Math.max(1, Math.min(depth, maxBytes / bytesPerMaze(width)));
+    this.idleMillis = idleMillis;
+    this.ready = new ArrayBlockingQueue<GridMaze>(this.capacity);
+    this.seeds = new SplittableRandom(seed);
+  }
+
+  // convenience constructor with the default depth, memory cap and idle time
+  MazePool(int width, long seed) {
+    this(width, DEFAULT_DEPTH, DEFAULT_MAX_BYTES, seed, DEFAULT_IDLE_MILLIS);
+  }
+
+  // rough heap size of one square maze of the given width
+  static long bytesPerMaze(int width) {
+    long words = ((long) width * width + 63) / 64;
+    return 2 * (16 + words * 8) + 48;
+  }
+
+  // takes the next ready maze in constant time,
+  // or generates one on the calling thread if the queue has run dry
+  // EFFECT: the producer is started if it had stopped
+  GridMaze take() {
+    this.touch();
+    GridMaze maze = this.ready.poll();
+    if (maze == null) {
+      this.misses.incrementAndGet();
+      maze = MazeGenerator.generate(this.width, this.width, this.nextSeed());
+    }
+    return maze;
+  }
+
+  // number of mazes ready right now
+  int readyCount() {
+    return this.ready.size();
+  }
+
+  // waits until at least count mazes are ready or the timeout passes, whichever is first
+  // returns whether they are ready
+  synchronized boolean awaitReady(int count, long timeoutMillis) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    while (this.ready.size() < count) {
+      long left = deadline - System.nanoTime();
+      if (left <= 0) {
+        return false;
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, left);
+    }
+    return true;
+  }
+
+  // waits for the background thread to stop, up to the timeout
+  // returns whether it has stopped
+  boolean awaitStopped(long timeoutMillis) throws InterruptedException {
+    Thread thread;
+    synchronized (this) {
+      thread = this.producer;
+    }
+    if (thread != null) {
+      thread.join(timeoutMillis);
+    }
+    return !this.running();
+  }
+
+  // is the background thread generating?
+  synchronized boolean running() {
+    return this.producer != null;
+  }
+
+  // EFFECT: stops the producer and drops every ready maze
+  void close() {
+    Thread thread;
+    synchronized (this) {
+      thread = this.producer;
+      this.producer = null;
+    }
+    if (thread != null) {
+      thread.interrupt();
+    }
+    this.ready.clear();
+  }
+
+  // EFFECT: records a take and starts the producer if it is not running
+  synchronized void touch() {
+    this.lastTake = System.nanoTime();
+    if (this.producer == null) {
+      this.producer = new Thread(this::produce, "maze-pool-" + this.width);
+      this.producer.setDaemon(true);
+      this.producer.start();
+    }
+  }
+
+  // the next seed, shared by the producer and takes that miss
+  synchronized long nextSeed() {
+    return this.seeds.nextLong();
+  }
+
+  // stops the producer if nobody has taken a maze for idleMillis
+  // checked under the same lock touch() uses, so a take never sees a producer that is leaving
+  // EFFECT: producer is cleared when idle
+  synchronized boolean stopIfIdle() {
+    if (Thread.currentThread() != this.producer) {
+      return true;
+    }
+    if (System.nanoTime() - this.lastTake >= TimeUnit.MILLISECONDS.toNanos(this.idleMillis)) {
+      this.producer = null;
+      return true;
+    }
+    return false;
+  }
+
+  // body of the background thread: generate, then wait for room in the queue
+  void produce() {
+    try {
+      while (!this.stopIfIdle()) {
+        GridMaze maze = MazeGenerator.generate(this.width, this.width, this.nextSeed());
+        // blocks while the queue is full, giving up if the pool goes idle
+        while (!this.ready.offer(maze, this.idleMillis, TimeUnit.MILLISECONDS)) {
+          if (this.stopIfIdle()) {
+            return;
+          }
+        }
+        this.generated.incrementAndGet();
+        // wakes awaitReady
+        synchronized (this) {
+          this.notifyAll();
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      synchronized (this) {
+        if (this.producer == Thread.currentThread()) {
+          this.producer = null;
+        }
+      }
+    }
+  }
+}
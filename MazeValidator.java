@@ -0,0 +1,180 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+// what checking one maze found
+// a maze is perfect when it has no passage leaving the grid, no cycle,
+// and exactly cells - 1 passages, which together mean it is one connected tree
+class PerfectCheck {
+  int cells;
+  int passages;
+  int outOfGrid; // passages through the outer wall, or bits past the last cell
+  int cycles; // passages joining cells that were already connected
+  int firstCycle; // cell whose passage closed the first cycle, -1 if none
+  int components; // connected pieces, counting only passages inside the grid
+
+  // is the maze a spanning tree of its grid?
+  boolean perfect() {
+    return this.outOfGrid == 0 && this.cycles == 0 && this.passages == this.cells - 1;
+  }
+
+  public String toString() {
+    return "cells=" + cells + " passages=" + passages + " outOfGrid=" + outOfGrid + " cycles="
+        + cycles + " firstCycle=" + firstCycle + " components=" + components;
+  }
+}
+
+// checks that mazes are perfect in one pass over their passage bitmaps,
+// with an int union-find that is kept between checks
+// one validator per thread, it is not safe to share
+class PerfectMazeValidator {
+  int[] parent = new int[0];
+
+  // checks every passage of the maze once, in bitmap order
+  PerfectCheck check(GridMaze maze) {
+    int n = maze.cellCount();
+    int width = maze.width;
+    if (this.parent.length < n) {
+      this.parent = new int[n];
+    }
+    for (int id = 0; id < n; id++) {
+      this.parent[id] = id;
+    }
+    PerfectCheck result = new PerfectCheck();
+    result.cells = n;
+    result.firstCycle = -1;
+    int joins = 0;
+    for (int w = 0; w < maze.rightOpen.length; w++) {
+      // only set bits are visited, one per passage
+      for (long bits = maze.rightOpen[w]; bits != 0; bits &= bits - 1) {
+        int id = (w << 6) + Long.numberOfTrailingZeros(bits);
+        result.passages++;
+        if (id >= n || id % width == width - 1) {
+          result.outOfGrid++;
+        }
+        else {
+          joins += this.join(id, id + 1, result);
+        }
+      }
+      for (long bits = maze.downOpen[w]; bits != 0; bits &= bits - 1) {
+        int id = (w << 6) + Long.numberOfTrailingZeros(bits);
+        result.passages++;
+        if (id >= n - width) {
+          result.outOfGrid++;
+        }
+        else {
+          joins += this.join(id, id + width, result);
+        }
+      }
+    }
+    result.components = n - joins;
+    return result;
+  }
+
+  // joins the sets of two neighboring cells, counting a cycle if they were one already
+  // returns 1 if two sets were joined, else 0
+  // EFFECT: parent is joined, result may count a cycle
+  int join(int a, int b, PerfectCheck result) {
+    int rootA = UnionFind.find(this.parent, a);
+    int rootB = UnionFind.find(this.parent, b);
+    if (rootA == rootB) {
+      if (result.cycles == 0) {
+        result.firstCycle = a;
+      }
+      result.cycles++;
+      return 0;
+    }
+    this.parent[rootA] = rootB;
+    return 1;
+  }
+
+  // checks many mazes in parallel, results in input order
+  static List<PerfectCheck> checkAll(List<GridMaze> mazes) {
+    ThreadLocal<PerfectMazeValidator> validators =
+        ThreadLocal.withInitial(PerfectMazeValidator::new);
+    return mazes.parallelStream().map(maze -> validators.get().check(maze))
+        .collect(Collectors.toList());
+  }
+}
+
+// what checking one file of mazes written back to back with GridMaze.writeTo found
+class CorpusFileReport {
+  Path file;
+  int mazes;
+  ArrayList<Integer> imperfect = new ArrayList<Integer>(); // positions in the file
+  String error; // why the file could not be read to the end, null if it was
+
+  // constructor
+  CorpusFileReport(Path file) {
+    this.file = file;
+  }
+
+  // was every maze readable and perfect?
+  boolean ok() {
+    return this.error == null && this.imperfect.isEmpty();
+  }
+
+  public String toString() {
+    return file + ": mazes=" + mazes + " imperfect=" + imperfect
+        + (error == null ? "" : " error=" + error);
+  }
+}
+
+// validates a corpus of maze files, one file per task on a fixed pool of threads
+// each file is streamed one maze at a time, so memory stays at one maze per thread
+class CorpusValidator {
+
+  // checks every maze of every file, reports in input order
+  static List<CorpusFileReport> validate(List<Path> files, int threads)
+      throws InterruptedException {
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+    ThreadLocal<PerfectMazeValidator> validators =
+        ThreadLocal.withInitial(PerfectMazeValidator::new);
+    ArrayList<Callable<CorpusFileReport>> tasks = new ArrayList<Callable<CorpusFileReport>>();
+    for (Path file : files) {
+      tasks.add(() -> validateFile(file, validators.get()));
+    }
+    ArrayList<CorpusFileReport> reports = new ArrayList<CorpusFileReport>();
+    try {
+      for (Future<CorpusFileReport> f : pool.invokeAll(tasks)) {
+        reports.add(f.get());
+      }
+    }
+    catch (ExecutionException e) {
+      throw new IllegalStateException("Validation failed", e.getCause());
+    }
+    finally {
+      pool.shutdownNow();
+    }
+    return reports;
+  }
+
+  // checks the mazes of one file in order, stopping at the first unreadable one
+  static CorpusFileReport validateFile(Path file, PerfectMazeValidator validator) {
+    CorpusFileReport report = new CorpusFileReport(file);
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+      GridMaze maze;
+      while ((maze = GridMaze.readFrom(in)) != null) {
+        if (!validator.check(maze).perfect()) {
+          report.imperfect.add(report.mazes);
+        }
+        report.mazes++;
+      }
+    }
+    catch (IOException e) {
+      report.error = e.toString();
+    }
+    return report;
+  }
+}
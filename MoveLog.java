@@ -0,0 +1,183 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// append-only log of a player's moves, 2 bits per move, 32 moves per long
+// directions use the numbering of Graph.direction: 0 left, 1 right, 2 up, 3 down
+// only moves that changed the player's cell are logged, so a replay
+// that runs into a wall has found a forged log
+class MoveLog {
+  static final int LEFT = 0;
+  static final int RIGHT = 1;
+  static final int UP = 2;
+  static final int DOWN = 3;
+  // most moves readFrom accepts, 4 MB of words
+  static final int MAX_MOVES = 1 << 24;
+
+  long[] words = new long[4];
+  int size;
+
+  // the direction code of a javalib arrow key name, -1 for any other key
+  static int code(String key) {
+    if (key.equals("left")) {
+      return LEFT;
+    }
+    else if (key.equals("right")) {
+      return RIGHT;
+    }
+    else if (key.equals("up")) {
+      return UP;
+    }
+    else if (key.equals("down")) {
+      return DOWN;
+    }
+    return -1;
+  }
+
+  // EFFECT: appends one move, growing the words when full
+  void append(int direction) {
+    if (direction < 0 || direction > 3) {
+      throw new IllegalArgumentException("Not a direction: " + direction);
+    }
+    if (this.size == this.words.length * 32) {
+      this.words = Arrays.copyOf(this.words, this.words.length * 2);
+    }
+    this.words[this.size >>> 5] |= (long) direction << ((this.size & 31) << 1);
+    this.size++;
+  }
+
+  // the move at the given index
+  int get(int index) {
+    return (int) (this.words[index >>> 5] >>> ((index & 31) << 1)) & 3;
+  }
+
+  // number of moves
+  int size() {
+    return this.size;
+  }
+
+  // EFFECT: forgets every move, keeping the words
+  void clear() {
+    Arrays.fill(this.words, 0, (this.size + 31) >>> 5, 0);
+    this.size = 0;
+  }
+
+  // EFFECT: writes the move count and the packed moves
+  void writeTo(DataOutputStream out) throws IOException {
+    out.writeInt(this.size);
+    for (int i = 0; i < (this.size + 31) >>> 5; i++) {
+      out.writeLong(this.words[i]);
+    }
+  }
+
+  // reads a log written by writeTo
+  // the words grow as they are read, so a forged count runs out of input
+  // long before it can allocate more than the input holds
+  static MoveLog readFrom(DataInputStream in) throws IOException {
+    int size = in.readInt();
+    if (size < 0 || size > MAX_MOVES) {
+      throw new IOException("Move count out of range: " + size);
+    }
+    int count = (size + 31) >>> 5;
+    MoveLog log = new MoveLog();
+    for (int i = 0; i < count; i++) {
+      if (i == log.words.length) {
+        log.words = Arrays.copyOf(log.words, Math.min(count, i * 2));
+      }
+      log.words[i] = in.readLong();
+    }
+    log.size = size;
+    // bits past the last move would make two equal logs differ
+    if ((size & 31) != 0 && log.words[size >>> 5] >>> ((size & 31) << 1) != 0) {
+      throw new IOException("Bits set past the last move");
+    }
+    return log;
+  }
+}
+
+// what replaying one log found
+class ReplayResult {
+  boolean legal; // no move ran into a wall or off the board
+  int firstIllegal; // index of the first illegal move, -1 if legal
+  int wrongMoves; // legal moves onto cells off the solution
+  boolean reachedGoal;
+
+  // does the log back up what the player claimed?
+  boolean matches(int wrongMoves, boolean win) {
+    return this.legal && this.wrongMoves == wrongMoves && this.reachedGoal == win;
+  }
+
+  public String toString() {
+    return "legal=" + legal + " firstIllegal=" + firstIllegal + " wrongMoves=" + wrongMoves
+        + " reachedGoal=" + reachedGoal;
+  }
+}
+
+// replays move logs against one maze's passage bitmaps
+// the solution is found once, then each replay is one bitmap lookup per move
+class MoveValidator {
+  GridMaze maze;
+  BitSet onPath; // cells on the solution from the top left to the bottom right
+  int goal;
+
+  // constructor
+  MoveValidator(GridMaze maze) {
+    this.maze = maze;
+    this.onPath = MazeExporter.solution(maze);
+    this.goal = maze.cellCount() - 1;
+  }
+
+  // replays the log from the top left cell, stopping at the first illegal move or the goal
+  ReplayResult replay(MoveLog log) {
+    ReplayResult result = new ReplayResult();
+    result.legal = true;
+    result.firstIllegal = -1;
+    int width = this.maze.width;
+    int current = 0;
+    for (int i = 0; i < log.size; i++) {
+      int direction = log.get(i);
+      boolean open;
+      int next;
+      if (direction == MoveLog.LEFT) {
+        open = this.maze.openLeft(current);
+        next = current - 1;
+      }
+      else if (direction == MoveLog.RIGHT) {
+        open = current % width != width - 1 && this.maze.openRight(current);
+        next = current + 1;
+      }
+      else if (direction == MoveLog.UP) {
+        open = this.maze.openUp(current);
+        next = current - width;
+      }
+      else {
+        open = current + width < this.maze.cellCount() && this.maze.openDown(current);
+        next = current + width;
+      }
+      if (!open) {
+        result.legal = false;
+        result.firstIllegal = i;
+        break;
+      }
+      current = next;
+      if (!this.onPath.get(current)) {
+        result.wrongMoves++;
+      }
+      // moves after the win are ignored, as GameSession.move does
+      if (current == this.goal) {
+        result.reachedGoal = true;
+        break;
+      }
+    }
+    return result;
+  }
+
+  // replays many logs of this maze in parallel, results in input order
+  List<ReplayResult> replayAll(List<MoveLog> logs) {
+    return logs.parallelStream().map(this::replay).collect(Collectors.toList());
+  }
+}
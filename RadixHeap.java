@@ -0,0 +1,105 @@
+import java.util.Arrays;
+
+// monotone priority queue of (long key, int value) pairs for dijkstra
+// keys pushed must never be smaller than the last key popped,
+// which always holds for dijkstra with non-negative weights
+// entries sit in 65 buckets by the highest bit they differ from the last key,
+// so each entry moves down at most 64 times before it is popped
+// bucket storage grows and is kept across clear(), so a warmed up heap
+// does not allocate
+class RadixHeap {
+  static final int BUCKETS = 65;
+
+  long[][] keys = new long[BUCKETS][];
+  int[][] values = new int[BUCKETS][];
+  int[] sizes = new int[BUCKETS];
+  long last;
+  int count;
+
+  // constructor
+  RadixHeap() {
+    for (int b = 0; b < BUCKETS; b++) {
+      this.keys[b] = new long[8];
+      this.values[b] = new int[8];
+    }
+  }
+
+  // bucket of a key relative to the last popped key
+  int bucket(long key) {
+    return key == this.last ? 0 : 64 - Long.numberOfLeadingZeros(key ^ this.last);
+  }
+
+  // EFFECT: adds the pair
+  void push(long key, int value) {
+    if (key < this.last) {
+      throw new IllegalArgumentException("Key " + key + " is below the last popped " + this.last);
+    }
+    this.add(this.bucket(key), key, value);
+    this.count++;
+  }
+
+  // EFFECT: appends the pair to bucket b, growing it if needed
+  void add(int b, long key, int value) {
+    int size = this.sizes[b];
+    if (size == this.keys[b].length) {
+      this.keys[b] = Arrays.copyOf(this.keys[b], size * 2);
+      this.values[b] = Arrays.copyOf(this.values[b], size * 2);
+    }
+    this.keys[b][size] = key;
+    this.values[b][size] = value;
+    this.sizes[b] = size + 1;
+  }
+
+  // removes the pair with the smallest key and returns its value
+  // the key is available afterwards as lastKey()
+  // EFFECT: the pair is removed and the last key may move up
+  int pop() {
+    if (this.count == 0) {
+      throw new IllegalStateException("Heap is empty");
+    }
+    if (this.sizes[0] == 0) {
+      int b = 1;
+      while (this.sizes[b] == 0) {
+        b++;
+      }
+      long[] bucketKeys = this.keys[b];
+      int[] bucketValues = this.values[b];
+      int size = this.sizes[b];
+      long min = bucketKeys[0];
+      for (int i = 1; i < size; i++) {
+        min = Math.min(min, bucketKeys[i]);
+      }
+      this.last = min;
+      this.sizes[b] = 0;
+      // every entry lands in a lower bucket
+      for (int i = 0; i < size; i++) {
+        this.add(this.bucket(bucketKeys[i]), bucketKeys[i], bucketValues[i]);
+      }
+    }
+    this.sizes[0]--;
+    this.count--;
+    return this.values[0][this.sizes[0]];
+  }
+
+  // key of the last popped pair
+  long lastKey() {
+    return this.last;
+  }
+
+  // number of pairs
+  int size() {
+    return this.count;
+  }
+
+  // is the heap empty?
+  boolean isEmpty() {
+    return this.count == 0;
+  }
+
+  // EFFECT: removes every pair and resets the last key to 0, keeping the storage
+  void clear() {
+    Arrays.fill(this.sizes, 0);
+    this.count = 0;
+    this.last = 0;
+  }
+}
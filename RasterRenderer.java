@@ -0,0 +1,206 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.Timer;
+
+// paints a whole maze board straight into the pixels of a BufferedImage
+// instead of placing one javalib image per cell and wall
+// each pixel row of a cell row is filled in runs of equal color,
+// then copied down to the rest of the cell's rows
+class RasterRenderer {
+  static final int WALL = Color.blue.getRGB();
+  static final int BORDER = Color.black.getRGB();
+
+  int length; // cells per side
+  int cellSize; // pixels per cell side, at least 2 so walls leave room for the cell
+  int width; // pixels per image side
+  BufferedImage image;
+  int[] pixels; // the image's own backing array, row by row
+
+  // constructor
+  RasterRenderer(int length, int cellSize) {
+    if (length < 1 || cellSize < 2) {
+      throw new IllegalArgumentException("Board needs a cell and cells need 2 pixels");
+    }
+    this.length = length;
+    this.cellSize = cellSize;
+    this.width = length * cellSize;
+    this.image = new BufferedImage(this.width, this.width, BufferedImage.TYPE_INT_RGB);
+    this.pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+  }
+
+  // largest cell size that fits the board into the given number of pixels, at least 2
+  static int fit(int length, int pixels) {
+    return Math.max(2, pixels / length);
+  }
+
+  // EFFECT: every pixel is repainted from the board's cell colors and walls
+  void render(ArrayList<ArrayList<Cell>> board) {
+    int cs = this.cellSize;
+    for (int row = 0; row < this.length; row++) {
+      ArrayList<Cell> cells = board.get(row);
+      int base = row * cs * this.width;
+
+      // cell colors, one bulk fill per run of equal colors
+      int col = 0;
+      while (col < this.length) {
+        int rgb = cells.get(col).color.getRGB();
+        int end = col + 1;
+        while (end < this.length && cells.get(end).color.getRGB() == rgb) {
+          end++;
+        }
+        Arrays.fill(this.pixels, base + col * cs, base + end * cs, rgb);
+        col = end;
+      }
+      for (int k = 1; k < cs; k++) {
+        System.arraycopy(this.pixels, base, this.pixels, base + k * this.width, this.width);
+      }
+
+      // a wall is an edge that is not connected, drawn on the last pixels of its cell
+      int lastRow = base + (cs - 1) * this.width;
+      for (col = 0; col < this.length; col++) {
+        Cell cell = cells.get(col);
+        if (cell.right != null && !cell.right.isConnected()) {
+          int x = base + (col + 1) * cs - 1;
+          for (int k = 0; k < cs; k++) {
+            this.pixels[x + k * this.width] = WALL;
+          }
+        }
+        if (cell.bottom != null && !cell.bottom.isConnected()) {
+          Arrays.fill(this.pixels, lastRow + col * cs, lastRow + (col + 1) * cs, WALL);
+        }
+      }
+    }
+
+    // outline of the whole board
+    int last = this.width - 1;
+    Arrays.fill(this.pixels, 0, this.width, BORDER);
+    Arrays.fill(this.pixels, last * this.width, this.width * this.width, BORDER);
+    for (int y = 0; y < this.width; y++) {
+      this.pixels[y * this.width] = BORDER;
+      this.pixels[y * this.width + last] = BORDER;
+    }
+  }
+
+  // the color of one pixel, for checking a render
+  int pixel(int x, int y) {
+    return this.pixels[y * this.width + x];
+  }
+}
+
+// a Swing window that plays a maze world through the raster renderer
+// instead of bigBang and the WorldScene path
+// keys and ticks go to the world exactly as bigBang would send them
+// boards larger than the screen scroll, following the player
+class RasterMazeView extends JPanel {
+  private static final long serialVersionUID = 1L;
+
+  MazeWorld world;
+  RasterRenderer renderer;
+  Timer timer;
+
+  // constructor
+  RasterMazeView(MazeWorld world, int cellSize, double tickSeconds) {
+    this.world = world;
+    this.renderer = new RasterRenderer(world.length, cellSize);
+    this.setPreferredSize(new Dimension(this.renderer.width, this.renderer.width + 30));
+    this.setFocusable(true);
+    this.addKeyListener(new KeyAdapter() {
+      public void keyPressed(KeyEvent e) {
+        String key = RasterMazeView.keyName(e);
+        if (key != null) {
+          // consumed, so the scroll pane does not scroll on arrow keys as well
+          e.consume();
+          RasterMazeView.this.world.onKeyEvent(key);
+          RasterMazeView.this.followPlayer();
+          RasterMazeView.this.repaint();
+        }
+      }
+    });
+    this.timer = new Timer((int) Math.max(1, tickSeconds * 1000), e -> {
+      this.world.onTick();
+      this.repaint();
+    });
+  }
+
+  // the javalib name of a pressed key, null for keys the game ignores
+  static String keyName(KeyEvent e) {
+    switch (e.getKeyCode()) {
+      case KeyEvent.VK_UP:
+        return "up";
+      case KeyEvent.VK_DOWN:
+        return "down";
+      case KeyEvent.VK_LEFT:
+        return "left";
+      case KeyEvent.VK_RIGHT:
+        return "right";
+      default:
+        char c = e.getKeyChar();
+        return c == KeyEvent.CHAR_UNDEFINED ? null : String.valueOf(c);
+    }
+  }
+
+  // scrolls the enclosing scroll pane, if any, so the player's cell and a few
+  // cells around it are in view
+  // EFFECT: the scroll position may change
+  void followPlayer() {
+    int cs = this.renderer.cellSize;
+    int id = this.world.currentCell.id;
+    int margin = 4 * cs;
+    this.scrollRectToVisible(new Rectangle(id % this.world.length * cs - margin,
+        id / this.world.length * cs - margin, cs + 2 * margin, cs + 2 * margin));
+  }
+
+  // paints the board, then the wrong move count under it
+  public void paintComponent(Graphics g) {
+    super.paintComponent(g);
+    long start = System.nanoTime();
+    this.renderer.render(this.world.board);
+    g.drawImage(this.renderer.image, 0, 0, null);
+    g.setColor(Color.black);
+    String hud = "Wrong moves: " + this.world.wrongMoves;
+    if (this.world.win) {
+      hud = hud + "  You win omg";
+    }
+    g.drawString(hud, 10, this.renderer.width + 20);
+    MazeMetrics.INSTANCE.recordRasterFrame(System.nanoTime() - start);
+  }
+
+  // opens a window playing the world, cells as large as fit on the screen
+  // cells are never smaller than 2 pixels, so boards of more than about half the
+  // screen height in cells (1000x1000 takes 2000x2000 pixels) scroll inside a screen sized window
+  static RasterMazeView open(MazeWorld world, double tickSeconds) {
+    Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
+    RasterMazeView view = new RasterMazeView(world,
+        RasterRenderer.fit(world.length, screen.height - 100), tickSeconds);
+    JFrame frame = new JFrame("Maze");
+    frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+    frame.addWindowListener(new WindowAdapter() {
+      public void windowClosed(WindowEvent e) {
+        view.timer.stop();
+      }
+    });
+    frame.add(new JScrollPane(view));
+    frame.pack();
+    frame.setSize(Math.min(frame.getWidth(), screen.width),
+        Math.min(frame.getHeight(), screen.height - 50));
+    frame.setVisible(true);
+    view.requestFocusInWindow();
+    view.timer.start();
+    return view;
+  }
+}
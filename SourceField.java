@@ -0,0 +1,87 @@
+import java.util.Arrays;
+
+// distances from a set of source cells, found by one breadth first search
+// started from all of them at once
+// after that one linear pass every question about a cell is an array lookup:
+//   nearest exit from every cell, when the sources are exits
+//   which spawn reaches a cell first, when the sources are spawn points
+class SourceField {
+  int[] sources; // cell ids, in the order they were given
+  int[] label; // index into sources of the source that reached each cell first, -1 if none
+  int[] dist; // moves from that source, -1 if unreached
+  int[] toward; // next cell on the way back to that source, -1 at a source or unreached
+
+  // constructor, runs the search
+  // ties between sources at the same distance go to the one whose wave got there first,
+  // which at distance 1 is the one listed first
+  SourceField(MazeAdjacency adj, int[] sources) {
+    int n = adj.cellCount();
+    this.sources = sources.clone();
+    this.label = new int[n];
+    this.dist = new int[n];
+    this.toward = new int[n];
+    Arrays.fill(this.label, -1);
+    Arrays.fill(this.dist, -1);
+    Arrays.fill(this.toward, -1);
+
+    int[] queue = new int[n];
+    int head = 0;
+    int tail = 0;
+    for (int s = 0; s < sources.length; s++) {
+      int id = sources[s];
+      if (id < 0 || id >= n) {
+        throw new IllegalArgumentException("No cell " + id);
+      }
+      // a cell listed twice keeps its first label
+      if (this.label[id] == -1) {
+        this.label[id] = s;
+        this.dist[id] = 0;
+        queue[tail++] = id;
+      }
+    }
+    while (head < tail) {
+      int id = queue[head++];
+      for (int i = adj.start(id); i < adj.end(id); i++) {
+        int other = adj.neighbor(i);
+        if (this.label[other] == -1) {
+          this.label[other] = this.label[id];
+          this.dist[other] = this.dist[id] + 1;
+          this.toward[other] = id;
+          queue[tail++] = other;
+        }
+      }
+    }
+  }
+
+  // the source that reaches the cell first, -1 if none does
+  int nearest(int id) {
+    return this.label[id] == -1 ? -1 : this.sources[this.label[id]];
+  }
+
+  // index into sources of the source that reaches the cell first, -1 if none does
+  int sourceIndex(int id) {
+    return this.label[id];
+  }
+
+  // moves from the cell to its nearest source, -1 if none is reachable
+  int distance(int id) {
+    return this.dist[id];
+  }
+
+  // the neighbor to step to on the way to the nearest source,
+  // -1 at a source or if none is reachable
+  int nextStep(int id) {
+    return this.toward[id];
+  }
+
+  // number of cells each source reaches first
+  int[] territory() {
+    int[] counts = new int[this.sources.length];
+    for (int id = 0; id < this.label.length; id++) {
+      if (this.label[id] != -1) {
+        counts[this.label[id]]++;
+      }
+    }
+    return counts;
+  }
+}
@@ -0,0 +1,12 @@
+// the splitmix64 mixer, a stateless hash that spreads any 64 bit value over every bit
+// shared by the chunked maze's streams, the generator's edge keys and the image cache's slots
+class SplitMix {
+
+  // one splitmix64 step
+  static long next(long state) {
+    long z = state + 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,336 @@
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+// which cells of a grid are next to which, as a precomputed table of cell ids
+// the neighbors of cell id are table[id * degree + slot], -1 where there is none
+// the table is filled by arithmetic on ids once, so lookups never touch Cell or Edge objects
+// everything that works on a MazeAdjacency (the solvers, the analytics) or on a Graph
+// of cells and edges (kruskal, the searches) works on any topology through
+// toAdjacency and toGraph
+abstract class Topology {
+  int cells;
+  int degree;
+  int[] table;
+
+  // constructor, subclasses set their own fields and then call build
+  Topology(int cells, int degree) {
+    if (cells < 1) {
+      throw new IllegalArgumentException("Topology needs at least one cell");
+    }
+    this.cells = cells;
+    this.degree = degree;
+  }
+
+  // EFFECT: fills the table from neighborOf
+  void build() {
+    this.table = new int[this.cells * this.degree];
+    for (int id = 0; id < this.cells; id++) {
+      for (int slot = 0; slot < this.degree; slot++) {
+        this.table[id * this.degree + slot] = this.neighborOf(id, slot);
+      }
+    }
+  }
+
+  // the neighbor in the given slot, computed from the id, -1 if there is none
+  abstract int neighborOf(int id, int slot);
+
+  // pixel center of the cell when drawn with cells of the given size
+  abstract int x(int id, int size);
+
+  abstract int y(int id, int size);
+
+  // number of cells
+  int cellCount() {
+    return this.cells;
+  }
+
+  // the neighbor in the given slot, -1 if there is none
+  int neighbor(int id, int slot) {
+    return this.table[id * this.degree + slot];
+  }
+
+  // is the slot the first one of this cell holding its neighbor there,
+  // and is that neighbor the larger id, so each edge is listed once?
+  boolean ownsEdge(int id, int slot) {
+    int other = this.table[id * this.degree + slot];
+    if (other <= id) {
+      return false;
+    }
+    for (int s = 0; s < slot; s++) {
+      if (this.table[id * this.degree + s] == other) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // number of edges between neighbors
+  int edgeCount() {
+    int count = 0;
+    for (int id = 0; id < this.cells; id++) {
+      for (int slot = 0; slot < this.degree; slot++) {
+        if (this.ownsEdge(id, slot)) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  // endpoints of every edge, smaller id first, in cell then slot order
+  // EFFECT: fills from and to, which must hold edgeCount entries
+  void edges(int[] from, int[] to) {
+    int e = 0;
+    for (int id = 0; id < this.cells; id++) {
+      for (int slot = 0; slot < this.degree; slot++) {
+        if (this.ownsEdge(id, slot)) {
+          from[e] = id;
+          to[e] = this.table[id * this.degree + slot];
+          e++;
+        }
+      }
+    }
+  }
+
+  // kruskal over the edges in a seeded random order, by cell id alone
+  // returns which edges, in edges order, are open passages
+  boolean[] generate(long seed) {
+    int count = this.edgeCount();
+    int[] from = new int[count];
+    int[] to = new int[count];
+    this.edges(from, to);
+    int[] order = new int[count];
+    for (int e = 0; e < count; e++) {
+      order[e] = e;
+    }
+    SplittableRandom random = new SplittableRandom(seed);
+    for (int i = count - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int tmp = order[i];
+      order[i] = order[j];
+      order[j] = tmp;
+    }
+    int[] parent = new int[this.cells];
+    for (int id = 0; id < this.cells; id++) {
+      parent[id] = id;
+    }
+    boolean[] open = new boolean[count];
+    for (int k = 0; k < count; k++) {
+      int e = order[k];
+      int a = UnionFind.find(parent, from[e]);
+      int b = UnionFind.find(parent, to[e]);
+      if (a != b) {
+        parent[a] = b;
+        open[e] = true;
+      }
+    }
+    return open;
+  }
+
+  // compact adjacency of the open edges
+  MazeAdjacency toAdjacency(boolean[] open) {
+    int count = this.edgeCount();
+    int[] from = new int[count];
+    int[] to = new int[count];
+    this.edges(from, to);
+    int kept = 0;
+    for (int e = 0; e < count; e++) {
+      if (open[e]) {
+        from[kept] = from[e];
+        to[kept] = to[e];
+        kept++;
+      }
+    }
+    return MazeAdjacency.fromEdges(this.cells, from, to, kept);
+  }
+
+  // cells and randomly weighted edges for this topology, sorted by weight
+  // returned as a Graph whose kruskal runs exactly as it does on the square board
+  Graph toGraph(Random r) {
+    Cell[] byId = new Cell[this.cells];
+    for (int id = 0; id < this.cells; id++) {
+      byId[id] = new Cell(id, this.x(id, 20), this.y(id, 20));
+    }
+    int count = this.edgeCount();
+    int[] from = new int[count];
+    int[] to = new int[count];
+    this.edges(from, to);
+    ArrayList<Edge> workList = new ArrayList<Edge>();
+    for (int e = 0; e < count; e++) {
+      workList.add(new Edge(byId[from[e]], byId[to[e]], r.nextInt(1000)));
+    }
+    workList.sort((e1, e2) -> e1.compareTo(e2));
+    return new Graph(new ArrayList<Edge>(), workList, byId);
+  }
+}
+
+// cell count of a width by height grid with the given number of layers
+class GridSize {
+  static int cells(int width, int height, int layers) {
+    if (width < 1 || height < 1 || layers < 1) {
+      throw new IllegalArgumentException("Grid must be at least 1x1x1");
+    }
+    return width * height * layers;
+  }
+}
+
+// the square grid of the game: slots 0 left, 1 right, 2 up, 3 down,
+// numbered like Graph.direction
+class SquareTopology extends Topology {
+  int width;
+  int height;
+
+  // constructor
+  SquareTopology(int width, int height) {
+    super(GridSize.cells(width, height, 1), 4);
+    this.width = width;
+    this.height = height;
+    this.build();
+  }
+
+  int neighborOf(int id, int slot) {
+    int row = id / this.width;
+    int col = id % this.width;
+    if (slot == 0) {
+      return col > 0 ? id - 1 : -1;
+    }
+    else if (slot == 1) {
+      return col < this.width - 1 ? id + 1 : -1;
+    }
+    else if (slot == 2) {
+      return row > 0 ? id - this.width : -1;
+    }
+    else {
+      return row < this.height - 1 ? id + this.width : -1;
+    }
+  }
+
+  int x(int id, int size) {
+    return id % this.width * size + size / 2;
+  }
+
+  int y(int id, int size) {
+    return id / this.width * size + size / 2;
+  }
+}
+
+// the square grid with its edges glued together, so leaving on one side
+// comes back on the other: same slots as SquareTopology, none of them -1
+class TorusTopology extends SquareTopology {
+  // constructor
+  TorusTopology(int width, int height) {
+    super(width, height);
+  }
+
+  int neighborOf(int id, int slot) {
+    int row = id / this.width;
+    int col = id % this.width;
+    if (slot == 0) {
+      return row * this.width + (col + this.width - 1) % this.width;
+    }
+    else if (slot == 1) {
+      return row * this.width + (col + 1) % this.width;
+    }
+    else if (slot == 2) {
+      return (row + this.height - 1) % this.height * this.width + col;
+    }
+    else {
+      return (row + 1) % this.height * this.width + col;
+    }
+  }
+}
+
+// hexagons in rows, every odd row pushed half a cell to the right
+// slots 0 left, 1 right, 2 up left, 3 up right, 4 down left, 5 down right
+class HexTopology extends Topology {
+  int width;
+  int height;
+
+  // constructor
+  HexTopology(int width, int height) {
+    super(GridSize.cells(width, height, 1), 6);
+    this.width = width;
+    this.height = height;
+    this.build();
+  }
+
+  int neighborOf(int id, int slot) {
+    int row = id / this.width;
+    int col = id % this.width;
+    if (slot == 0) {
+      return col > 0 ? id - 1 : -1;
+    }
+    else if (slot == 1) {
+      return col < this.width - 1 ? id + 1 : -1;
+    }
+    // the row above and below reach one column further right from an odd row
+    int otherRow = slot < 4 ? row - 1 : row + 1;
+    int otherCol = col + (row & 1) - (slot % 2 == 0 ? 1 : 0);
+    if (otherRow < 0 || otherRow >= this.height || otherCol < 0 || otherCol >= this.width) {
+      return -1;
+    }
+    return otherRow * this.width + otherCol;
+  }
+
+  int x(int id, int size) {
+    return id % this.width * size + (id / this.width & 1) * size / 2 + size / 2;
+  }
+
+  int y(int id, int size) {
+    return id / this.width * size * 3 / 4 + size / 2;
+  }
+}
+
+// square grids stacked in layers, with stairs between the same cell of neighboring layers
+// slots 0 left, 1 right, 2 up, 3 down, 4 the layer below, 5 the layer above
+// ids run through a layer row by row before the next layer starts
+class LayeredTopology extends Topology {
+  int width;
+  int height;
+  int layers;
+
+  // constructor
+  LayeredTopology(int width, int height, int layers) {
+    super(GridSize.cells(width, height, layers), 6);
+    this.width = width;
+    this.height = height;
+    this.layers = layers;
+    this.build();
+  }
+
+  int neighborOf(int id, int slot) {
+    int area = this.width * this.height;
+    int layer = id / area;
+    int row = id % area / this.width;
+    int col = id % this.width;
+    if (slot == 0) {
+      return col > 0 ? id - 1 : -1;
+    }
+    else if (slot == 1) {
+      return col < this.width - 1 ? id + 1 : -1;
+    }
+    else if (slot == 2) {
+      return row > 0 ? id - this.width : -1;
+    }
+    else if (slot == 3) {
+      return row < this.height - 1 ? id + this.width : -1;
+    }
+    else if (slot == 4) {
+      return layer > 0 ? id - area : -1;
+    }
+    else {
+      return layer < this.layers - 1 ? id + area : -1;
+    }
+  }
+
+  // layers are drawn side by side, one empty column apart
+  int x(int id, int size) {
+    int layer = id / (this.width * this.height);
+    return (layer * (this.width + 1) + id % this.width) * size + size / 2;
+  }
+
+  int y(int id, int size) {
+    return id % (this.width * this.height) / this.width * size + size / 2;
+  }
+}
@@ -0,0 +1,14 @@
+// union-find over int parent arrays, one entry per element, roots are their own parent
+// shared by every kruskal over cell ids and by eller's sets of row labels
+class UnionFind {
+
+  // finds the root of the given element, halving the path along the way
+  // EFFECT: parent entries on the path are shortened
+  static int find(int[] parent, int i) {
+    while (parent[i] != i) {
+      parent[i] = parent[parent[i]];
+      i = parent[i];
+    }
+    return i;
+  }
+}
@@ -0,0 +1,73 @@
+// represents the camera over a board of cells
+// only the cells inside the window are drawn, so drawing costs
+// depend on the window size and not on the board size
+class Viewport {
+  // pixels per cell when zoomed in
+  static final int CELL_SIZE = 20;
+  // pixels per block in the zoomed out overview
+  static final int BLOCK_SIZE = 4;
+
+  int widthPx;
+  int heightPx;
+  int boardCols;
+  int boardRows;
+  // top left visible cell
+  int firstCol;
+  int firstRow;
+  boolean overview;
+
+  // constructor
+  Viewport(int widthPx, int heightPx, int boardCols, int boardRows) {
+    this.widthPx = widthPx;
+    this.heightPx = heightPx;
+    this.boardCols = boardCols;
+    this.boardRows = boardRows;
+    this.firstCol = 0;
+    this.firstRow = 0;
+    this.overview = false;
+  }
+
+  // number of cell columns that fit in the window
+  int visibleCols() {
+    return Math.min(this.boardCols, this.widthPx / CELL_SIZE);
+  }
+
+  // number of cell rows that fit in the window
+  int visibleRows() {
+    return Math.min(this.boardRows, this.heightPx / CELL_SIZE);
+  }
+
+  // centers the window on the given cell, keeping it inside the board
+  // EFFECT: firstCol and firstRow are changed
+  void follow(int col, int row) {
+    this.firstCol = clamp(col - this.visibleCols() / 2, 0, this.boardCols - this.visibleCols());
+    this.firstRow = clamp(row - this.visibleRows() / 2, 0, this.boardRows - this.visibleRows());
+  }
+
+  // x offset in pixels to subtract from a cell position
+  int offsetX() {
+    return this.firstCol * CELL_SIZE;
+  }
+
+  // y offset in pixels to subtract from a cell position
+  int offsetY() {
+    return this.firstRow * CELL_SIZE;
+  }
+
+  // how many cells along one side are merged into one overview block
+  int cellsPerBlock() {
+    int blocks = Math.min(this.widthPx, this.heightPx) / BLOCK_SIZE;
+    int longest = Math.max(this.boardCols, this.boardRows);
+    return Math.max(1, (longest + blocks - 1) / blocks);
+  }
+
+  // EFFECT: switches between the zoomed in window and the overview
+  void toggleOverview() {
+    this.overview = !this.overview;
+  }
+
+  // restricts n to [low, high]
+  static int clamp(int n, int low, int high) {
+    return Math.max(low, Math.min(high, n));
+  }
+}